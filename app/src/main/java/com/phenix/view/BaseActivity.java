@@ -1,9 +1,12 @@
 package com.phenix.view;
 
+import android.os.Bundle;
 import android.support.annotation.LayoutRes;
+import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 
+import lib.phenix.com.views.SnapshotCache;
 import lib.phenix.com.views.SwipeBackLayout;
 
 /**
@@ -12,6 +15,15 @@ import lib.phenix.com.views.SwipeBackLayout;
 
 public abstract class BaseActivity extends AppCompatActivity {
 
+    private SwipeBackLayout mSwipeBackLayout;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        //被上一层界面请求的界面onStop时截图，上一层界面拖动时作为背景
+        SnapshotCache.install(getApplication());
+        super.onCreate(savedInstanceState);
+    }
+
     @Override
     public void setContentView(@LayoutRes int layoutResID) {
         View contentView = getLayoutInflater().inflate(layoutResID, null, false);
@@ -22,6 +34,12 @@ public abstract class BaseActivity extends AppCompatActivity {
     @Override
     public void setContentView(View view) {
         SwipeBackLayout swipeBackLayout = new SwipeBackLayout(this, view, SwipeBackLayout.UP | SwipeBackLayout.LEFT | SwipeBackLayout.RIGHT | SwipeBackLayout.DOWN);
+        mSwipeBackLayout = swipeBackLayout;
+        //页面层，截图背景下不开启SwipeBackStack的视差
+        swipeBackLayout.setStackLayer(true);
+        swipeBackLayout.setBackdropKey(SnapshotCache.getInstance().previousKeyOf(this));
+        //静止时窗口不透明，拖动时才切换为透明
+        swipeBackLayout.setTranslucentOnDrag(true);
         swipeBackLayout.setOnSwipeBackListener(new SwipeBackLayout.OnSwipeBackListener() {
             @Override
             public boolean onIntercept(@SwipeBackLayout.DragDirection int direction, float x, float y) {
@@ -41,6 +59,21 @@ public abstract class BaseActivity extends AppCompatActivity {
         super.setContentView(swipeBackLayout);
     }
 
+    /**
+     * 先显示占位View，在后台线程inflate布局，完成后替换，占位期间已经可以swipe back
+     *
+     * @param layoutResID 布局
+     * @param listener    布局替换完成后回调，在这里findViewById
+     */
+    public void setContentViewAsync(@LayoutRes int layoutResID, @Nullable SwipeBackLayout.OnContentInflatedListener listener) {
+        this.setContentView(SwipeBackLayout.createPlaceholder(this));
+        mSwipeBackLayout.inflateContentAsync(layoutResID, listener);
+    }
+
+    public SwipeBackLayout getSwipeBackLayout() {
+        return mSwipeBackLayout;
+    }
+
     public boolean onSwipeBackPre(@SwipeBackLayout.DragDirection int direction, float x, float y){
         return false;
     }
@@ -112,6 +112,12 @@ public class MainActivity extends BaseActivity
         if (id == R.id.action_settings) {
             return true;
         }
+        if (id == R.id.action_hardware_layer) {
+            //调试开关，没有默认开启：对比开关前后 adb shell dumpsys gfxinfo com.phenix.view 的帧耗时后再决定
+            item.setChecked(!item.isChecked());
+            getSwipeBackLayout().setHardwareLayerOnDrag(item.isChecked());
+            return true;
+        }
 
         return super.onOptionsItemSelected(item);
     }
@@ -0,0 +1,102 @@
+package lib.phenix.com.views;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个touch事件上手势判断逻辑的耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GestureDecisionBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private final float[] mX = new float[SIZE];
+    private final float[] mY = new float[SIZE];
+    private final int[] mDirections = new int[SIZE];
+    private final int[] mMasks = new int[SIZE];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        final int[] directions = {DragDirections.LEFT, DragDirections.UP, DragDirections.RIGHT, DragDirections.DOWN};
+        for (int i = 0; i < SIZE; i++) {
+            mX[i] = random.nextFloat() * WIDTH;
+            mY[i] = random.nextFloat() * HEIGHT;
+            mDirections[i] = directions[random.nextInt(directions.length)];
+            mMasks[i] = random.nextInt(16);
+        }
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & (SIZE - 1);
+        return mIndex;
+    }
+
+    @Benchmark
+    public int classifyDirection() {
+        final int i = next();
+        return DirectionClassifier.classify(WIDTH / 2, HEIGHT / 2, mX[i], mY[i]);
+    }
+
+    private final DirectionClassifier mClassifier = new DirectionClassifier(24, DirectionClassifier.DEFAULT_HYSTERESIS);
+
+    /**
+     * 从屏幕中心出发，每个MOVE移动4px，直到判定出方向，包括slop内的采样
+     */
+    @Benchmark
+    public int classifyGesture() {
+        final int i = next();
+        final float stepX = (mX[i] - WIDTH / 2) / WIDTH * 4;
+        final float stepY = (mY[i] - HEIGHT / 2) / HEIGHT * 4;
+        mClassifier.reset(WIDTH / 2, HEIGHT / 2);
+        int direction = DragDirections.NONE;
+        for (int n = 1; n <= 32 && direction == DragDirections.NONE; n++) {
+            direction = mClassifier.addSample(WIDTH / 2 + stepX * n, HEIGHT / 2 + stepY * n);
+        }
+        return direction;
+    }
+
+    @Benchmark
+    public void directionMask(Blackhole blackhole) {
+        final int i = next();
+        blackhole.consume(DragDirections.isAllow(mMasks[i], mDirections[i]));
+        blackhole.consume(DragDirections.isOnlyAllow(mMasks[i], mDirections[i]));
+    }
+
+    @Benchmark
+    public int clamp() {
+        final int i = next();
+        final int direction = mDirections[i];
+        final boolean horizontal = DragDirections.isHorizontal(direction);
+        final int position = (int) (horizontal ? mX[i] : mY[i]) - (horizontal ? WIDTH : HEIGHT) / 2;
+        if (!DragBounds.isOnDragSide(direction, position, 0)) return 0;
+        return DragBounds.clamp(direction, position, 0, horizontal ? WIDTH : HEIGHT);
+    }
+
+    @Benchmark
+    public int releaseDecision() {
+        final int i = next();
+        final int direction = mDirections[i];
+        final boolean horizontal = DragDirections.isHorizontal(direction);
+        final int range = horizontal ? WIDTH : HEIGHT;
+        final float velocity = ReleasePolicy.exitVelocity(direction, mX[i] - WIDTH / 2, mY[i] - HEIGHT / 2);
+        final boolean finish = ReleasePolicy.shouldFinish((int) (horizontal ? mX[i] : mY[i]), range, 0.3f,
+                velocity, 400, 16);
+        return ReleasePolicy.finalPosition(direction, finish, 0, range);
+    }
+}
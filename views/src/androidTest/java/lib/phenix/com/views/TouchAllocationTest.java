@@ -0,0 +1,65 @@
+package lib.phenix.com.views;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 完整的touch路径（dispatchTouchEvent -> onInterceptTouchEvent/onTouchEvent -> ViewDragHelper）
+ * 拖动过程中的MOVE事件不能分配对象，通过 {@link GestureTracePlayer} 统计（Debug#getThreadAllocCount）
+ * <p>
+ * Robolectric会改写Android方法（装箱参数等），分配数不可信，所以放在设备上跑：
+ * ./gradlew :views:connectedAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class TouchAllocationTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void dragMovesDoNotAllocate() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final Context context = InstrumentationRegistry.getTargetContext();
+                final SwipeBackLayout layout = new SwipeBackLayout(context, new FrameLayout(context),
+                        SwipeBackLayout.LEFT | SwipeBackLayout.UP);
+                layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                layout.layout(0, 0, WIDTH, HEIGHT);
+
+                final GestureTrace trace = swipe(10, HEIGHT / 2, 40, 0);
+                //第一次回放完成类加载、VelocityTracker等对象的创建
+                GestureTracePlayer.replay(layout, trace);
+                final GestureTracePlayer.Result result = GestureTracePlayer.replay(layout, trace);
+                assertEquals(SwipeBackLayout.LEFT, result.getDirection());
+                for (int i = 0; i < trace.size(); i++) {
+                    if (trace.getAction(i) != MotionEvent.ACTION_MOVE) continue;
+                    assertEquals("MOVE #" + i + " allocated", 0, result.getAllocations(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * 从(x, y)开始，每16ms移动(stepX, stepY)，共20个MOVE后松手
+     */
+    private static GestureTrace swipe(float x, float y, float stepX, float stepY) {
+        final GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        trace.add(MotionEvent.ACTION_DOWN, 0, x, y);
+        for (int i = 1; i <= 20; i++) {
+            trace.add(MotionEvent.ACTION_MOVE, i * 16, x + stepX * i, y + stepY * i);
+        }
+        trace.add(MotionEvent.ACTION_UP, 21 * 16, x + stepX * 20, y + stepY * 20);
+        return trace;
+    }
+}
@@ -0,0 +1,95 @@
+package lib.phenix.com.views;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+
+/**
+ * 按布局id缓存的主视图池，配合app:lazyContent使用：
+ * 可以提前（如空闲时）inflate若干个，SwipeBackLayout第一次measure时优先从池中取，
+ * 不再显示时通过 {@link SwipeBackLayout#recycleContentView()} 放回池中复用
+ * <p>
+ * 只能在主线程调用，池中的View保留了inflate时的Context（一般为Activity），不要跨Activity共享
+ */
+public final class ContentViewPool {
+
+    private final SparseArray<ArrayList<View>> mPool = new SparseArray<>();
+    private final int mMaxPerLayout;
+    /**
+     * 提前inflate时用来生成LayoutParams，不会添加子View
+     */
+    private FrameLayout mInflateParent;
+
+    /**
+     * @param maxPerLayout 每个布局最多保留的View数
+     */
+    public ContentViewPool(int maxPerLayout) {
+        mMaxPerLayout = maxPerLayout;
+    }
+
+    /**
+     * 提前inflate，补足到count个
+     *
+     * @param context  Activity
+     * @param layoutId 布局
+     * @param count    数量，不超过maxPerLayout
+     */
+    public void preInflate(@NonNull Context context, @LayoutRes int layoutId, int count) {
+        if (null == mInflateParent) mInflateParent = new FrameLayout(context);
+        final LayoutInflater inflater = LayoutInflater.from(context);
+        final ArrayList<View> views = obtainList(layoutId);
+        final int target = Math.min(count, mMaxPerLayout);
+        while (views.size() < target) {
+            views.add(inflater.inflate(layoutId, mInflateParent, false));
+        }
+    }
+
+    /**
+     * @return 池中layoutId的View，没有返回null
+     */
+    @Nullable
+    public View acquire(@LayoutRes int layoutId) {
+        final ArrayList<View> views = mPool.get(layoutId);
+        if (null == views || views.isEmpty()) return null;
+        return views.remove(views.size() - 1);
+    }
+
+    /**
+     * 放回池中，view需已经从父View移除；池满时丢弃
+     */
+    public void release(@LayoutRes int layoutId, @NonNull View view) {
+        if (null != view.getParent()) {
+            throw new IllegalStateException("view must be removed from its parent before release");
+        }
+        final ArrayList<View> views = obtainList(layoutId);
+        if (views.size() < mMaxPerLayout) views.add(view);
+    }
+
+    /**
+     * @return 池中layoutId的View数量
+     */
+    public int size(@LayoutRes int layoutId) {
+        final ArrayList<View> views = mPool.get(layoutId);
+        return null == views ? 0 : views.size();
+    }
+
+    public void clear() {
+        mPool.clear();
+    }
+
+    private ArrayList<View> obtainList(int layoutId) {
+        ArrayList<View> views = mPool.get(layoutId);
+        if (null == views) {
+            views = new ArrayList<>(mMaxPerLayout);
+            mPool.put(layoutId, views);
+        }
+        return views;
+    }
+}
@@ -0,0 +1,104 @@
+package lib.phenix.com.views;
+
+/**
+ * 判断drag方向，纯Java，不依赖Android
+ * <p>
+ * 按下后逐个收集MOVE采样，移动距离超过touch slop之前不做判断，避免亚像素抖动锁定方向；
+ * 超过slop后主轴位移需超过另一轴的hysteresis倍才判定，接近45°时继续等待，
+ * 移动距离超过2倍slop仍不明确时按位移较大的轴判定。全程只做乘法比较，没有除法。
+ * 一个手势内复用同一个实例，没有对象分配
+ */
+final class DirectionClassifier {
+
+    /**
+     * 默认滞后倍数，主轴位移至少为另一轴的1.2倍（约50°以内）
+     */
+    static final float DEFAULT_HYSTERESIS = 1.2f;
+
+    private final float mTouchSlopSquare;
+    private final float mHysteresis;
+
+    private float mDownX;
+    private float mDownY;
+    private int mDirection;
+    /**
+     * 按下后收到的采样数
+     */
+    private int mSampleCount;
+    /**
+     * 判定出方向时用了几个采样
+     */
+    private int mLatency;
+
+    /**
+     * @param touchSlop  px，ViewConfiguration#getScaledTouchSlop
+     * @param hysteresis 主轴位移与另一轴位移的最小倍数，>=1
+     */
+    DirectionClassifier(float touchSlop, float hysteresis) {
+        mTouchSlopSquare = touchSlop * touchSlop;
+        mHysteresis = hysteresis;
+    }
+
+    /**
+     * ACTION_DOWN时调用，开始新的判断
+     */
+    void reset(float downX, float downY) {
+        mDownX = downX;
+        mDownY = downY;
+        mDirection = DragDirections.NONE;
+        mSampleCount = 0;
+        mLatency = 0;
+    }
+
+    /**
+     * 添加一个MOVE采样，已判定后不再改变
+     *
+     * @return DragDirections中的方向，还不能判定时返回NONE
+     */
+    int addSample(float x, float y) {
+        if (mDirection != DragDirections.NONE) return mDirection;
+        mSampleCount++;
+        final float dx = x - mDownX;
+        final float dy = y - mDownY;
+        final float distanceSquare = dx * dx + dy * dy;
+        if (distanceSquare <= mTouchSlopSquare) return DragDirections.NONE;
+        final float adx = Math.abs(dx);
+        final float ady = Math.abs(dy);
+        if (ady >= adx * mHysteresis) {
+            mDirection = dy > 0 ? DragDirections.UP : DragDirections.DOWN;
+        } else if (adx >= ady * mHysteresis) {
+            mDirection = dx > 0 ? DragDirections.LEFT : DragDirections.RIGHT;
+        } else if (distanceSquare > mTouchSlopSquare * 4) {
+            mDirection = classify(mDownX, mDownY, x, y);
+        } else {
+            return DragDirections.NONE;
+        }
+        mLatency = mSampleCount;
+        return mDirection;
+    }
+
+    /**
+     * @return 已判定的方向，未判定为NONE
+     */
+    int getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * @return 判定方向用了几个MOVE采样，未判定为0
+     */
+    int getDecisionLatency() {
+        return mLatency;
+    }
+
+    /**
+     * 按位移较大的轴判断，竖直位移>=水平位移为竖直方向，没有除法
+     *
+     * @return DragDirections中的方向，向下划为UP，向右划为LEFT（即从哪一边拖出）
+     */
+    static int classify(float downX, float downY, float x, float y) {
+        return Math.abs(y - downY) >= Math.abs(x - downX)
+                ? (y > downY ? DragDirections.UP : DragDirections.DOWN)
+                : (x > downX ? DragDirections.LEFT : DragDirections.RIGHT);
+    }
+}
@@ -0,0 +1,102 @@
+package lib.phenix.com.views;
+
+import java.util.Arrays;
+
+/**
+ * 按下位置所在网格 + 拖动方向 -> 子View滑动还是swipe back，纯Java，不依赖Android
+ * 同一区域重复的手势不再查找可滑动子View、调用canScroll
+ * <p>
+ * 每个格子用一个byte，每个方向2位；任何滚动或布局变化后整体失效
+ */
+final class DirectionDecisionCache {
+
+    static final int UNKNOWN = 0;
+    static final int CHILD_WINS = 1;
+    static final int SWIPE_WINS = 2;
+
+    private final int mCellSize;
+    private int mColumns;
+    private int mRows;
+    private byte[] mCells = new byte[0];
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * @param cellSize 网格边长，px
+     */
+    DirectionDecisionCache(int cellSize) {
+        mCellSize = Math.max(1, cellSize);
+    }
+
+    /**
+     * 区域大小变化，重新分配网格
+     */
+    void setSize(int width, int height) {
+        mColumns = (width + mCellSize - 1) / mCellSize;
+        mRows = (height + mCellSize - 1) / mCellSize;
+        final int size = mColumns * mRows;
+        if (mCells.length != size) {
+            mCells = new byte[size];
+        } else {
+            invalidate();
+        }
+    }
+
+    void invalidate() {
+        Arrays.fill(mCells, (byte) 0);
+    }
+
+    /**
+     * @param x         按下点相对坐标
+     * @param y         按下点相对坐标
+     * @param direction DragDirections中的方向
+     * @return UNKNOWN / CHILD_WINS / SWIPE_WINS
+     */
+    int get(float x, float y, int direction) {
+        final int cell = cellOf(x, y);
+        if (cell < 0) return UNKNOWN;
+        return (mCells[cell] >> shiftOf(direction)) & 0x3;
+    }
+
+    /**
+     * 记录一次查找结果，由调用方决定计数的粒度（SwipeBackLayout每个手势只记一次）
+     */
+    void countLookup(boolean hit) {
+        if (hit) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+    }
+
+    void put(float x, float y, int direction, boolean childWins) {
+        final int cell = cellOf(x, y);
+        if (cell < 0) return;
+        final int shift = shiftOf(direction);
+        final int decision = childWins ? CHILD_WINS : SWIPE_WINS;
+        mCells[cell] = (byte) ((mCells[cell] & ~(0x3 << shift)) | (decision << shift));
+    }
+
+    int getHitCount() {
+        return mHitCount;
+    }
+
+    int getMissCount() {
+        return mMissCount;
+    }
+
+    private int cellOf(float x, float y) {
+        if (x < 0 || y < 0) return -1;
+        final int column = (int) x / mCellSize;
+        final int row = (int) y / mCellSize;
+        if (column >= mColumns || row >= mRows) return -1;
+        return row * mColumns + column;
+    }
+
+    /**
+     * LEFT、UP、RIGHT、DOWN分别占0、2、4、6位
+     */
+    private static int shiftOf(int direction) {
+        return Integer.numberOfTrailingZeros(direction) * 2;
+    }
+}
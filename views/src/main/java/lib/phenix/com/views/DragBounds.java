@@ -0,0 +1,55 @@
+package lib.phenix.com.views;
+
+/**
+ * 各方向拖动时的位置边界计算，纯Java，不依赖Android
+ */
+final class DragBounds {
+
+    private DragBounds() {
+    }
+
+    /**
+     * 将拖动位置限制在direction方向的边界内
+     *
+     * @param direction DragDirections
+     * @param position  left或top
+     * @param padding   paddingLeft或paddingTop
+     * @param range     该方向的drag范围
+     * @return 限制后的位置
+     */
+    static int clamp(int direction, int position, int padding, int range) {
+        final int min;
+        final int max;
+        switch (direction) {
+            case DragDirections.LEFT:
+            case DragDirections.UP:
+                min = padding;
+                max = range;
+                break;
+            case DragDirections.RIGHT:
+            case DragDirections.DOWN:
+                min = -range;
+                max = padding;
+                break;
+            default:
+                return position;
+        }
+        return Math.min(Math.max(position, min), max);
+    }
+
+    /**
+     * 拖动位置是否在direction方向上离开了原点那一侧
+     */
+    static boolean isOnDragSide(int direction, int position, int origin) {
+        switch (direction) {
+            case DragDirections.LEFT:
+            case DragDirections.UP:
+                return position >= origin;
+            case DragDirections.RIGHT:
+            case DragDirections.DOWN:
+                return position <= origin;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package lib.phenix.com.views;
+
+/**
+ * 方向常量及方向mask判断，纯Java，不依赖Android，可在JVM上直接测试、benchmark
+ */
+final class DragDirections {
+
+    static final int NONE = 0;
+    static final int LEFT = 1;
+    static final int UP = 1 << 1;
+    static final int RIGHT = 1 << 2;
+    static final int DOWN = 1 << 3;
+
+    private DragDirections() {
+    }
+
+    /**
+     * 判断mask是否允许direction这个方向的划动
+     */
+    static boolean isAllow(int mask, int direction) {
+        return direction == (mask & direction);
+    }
+
+    /**
+     * mask是否禁用了direction
+     */
+    static boolean isNotAllow(int mask, int direction) {
+        return (mask & direction) == 0;
+    }
+
+    /**
+     * mask是否仅仅允许direction
+     */
+    static boolean isOnlyAllow(int mask, int direction) {
+        return mask == direction;
+    }
+
+    /**
+     * 是否水平方向
+     */
+    static boolean isHorizontal(int direction) {
+        return direction == LEFT || direction == RIGHT;
+    }
+}
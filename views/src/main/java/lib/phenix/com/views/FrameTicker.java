@@ -0,0 +1,115 @@
+package lib.phenix.com.views;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * 逐帧回调，API 16以上使用Choreographer，以下用Handler按16ms模拟
+ * start()之后每帧回调一次，直到stop()，过程中没有对象分配
+ * 可以在任意线程创建，start()/stop()需在主线程调用
+ */
+abstract class FrameTicker {
+
+    interface Callback {
+        /**
+         * @param frameTimeNanos 帧时间，System.nanoTime()时间基
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    final Callback mCallback;
+    boolean mRunning;
+
+    FrameTicker(Callback callback) {
+        mCallback = callback;
+    }
+
+    static FrameTicker create(Callback callback) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return new ChoreographerTicker(callback);
+        }
+        return new HandlerTicker(callback);
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    void start() {
+        if (mRunning) return;
+        mRunning = true;
+        postFrame();
+    }
+
+    void stop() {
+        if (!mRunning) return;
+        mRunning = false;
+        removeFrame();
+    }
+
+    void dispatchFrame(long frameTimeNanos) {
+        if (!mRunning) return;
+        mCallback.doFrame(frameTimeNanos);
+        if (mRunning) postFrame();
+    }
+
+    abstract void postFrame();
+
+    abstract void removeFrame();
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerTicker extends FrameTicker implements Choreographer.FrameCallback {
+        /**
+         * 第一次start()时才取，创建FrameTicker（如SwipeBackLayout在AsyncLayoutInflater的后台线程构造）
+         * 不需要Looper线程，也不会绑定到构造线程的Choreographer
+         */
+        private Choreographer mChoreographer;
+
+        ChoreographerTicker(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            dispatchFrame(frameTimeNanos);
+        }
+
+        @Override
+        void postFrame() {
+            if (null == mChoreographer) mChoreographer = Choreographer.getInstance();
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        void removeFrame() {
+            if (null != mChoreographer) mChoreographer.removeFrameCallback(this);
+        }
+    }
+
+    private static class HandlerTicker extends FrameTicker implements Runnable {
+        private static final long FRAME_DELAY = 16;
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        HandlerTicker(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        public void run() {
+            dispatchFrame(System.nanoTime());
+        }
+
+        @Override
+        void postFrame() {
+            mHandler.postDelayed(this, FRAME_DELAY);
+        }
+
+        @Override
+        void removeFrame() {
+            mHandler.removeCallbacks(this);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package lib.phenix.com.views;
+
+import android.content.Context;
+import android.view.WindowManager;
+
+/**
+ * 统计一次手势的 {@link SwipeBackMetrics.Gesture}，settle过程中通过帧回调统计丢帧
+ */
+class GestureMetricsTracker implements FrameTicker.Callback {
+
+    private final SwipeBackMetrics mMetrics;
+    private final SwipeBackMetrics.Gesture mGesture = new SwipeBackMetrics.Gesture();
+    private final FrameTicker mTicker = FrameTicker.create(this);
+    /**
+     * 一帧的时长
+     */
+    private final long mFrameIntervalNanos;
+
+    private long mDownTimeNanos;
+    private long mLastFrameTimeNanos;
+    private boolean mCaptured;
+
+    GestureMetricsTracker(Context context, SwipeBackMetrics metrics) {
+        mMetrics = metrics;
+        float refreshRate = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE))
+                .getDefaultDisplay().getRefreshRate();
+        if (refreshRate < 10) refreshRate = 60;
+        mFrameIntervalNanos = (long) (1000000000L / refreshRate);
+    }
+
+    void onDown() {
+        if (mCaptured) return;
+        mGesture.reset();
+        mDownTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * @param latencyEvents 判定方向用了几个MOVE事件
+     */
+    void onDirectionDecided(int direction, int latencyEvents) {
+        if (mCaptured || mGesture.direction != SwipeBackLayout.NONE) return;
+        mGesture.direction = direction;
+        mGesture.directionLatencyNanos = System.nanoTime() - mDownTimeNanos;
+        mGesture.directionLatencyEvents = latencyEvents;
+    }
+
+    void onCaptured() {
+        if (mCaptured) return;
+        mCaptured = true;
+        mGesture.captureLatencyNanos = System.nanoTime() - mDownTimeNanos;
+    }
+
+    void onClamp() {
+        mGesture.clampCount++;
+    }
+
+    void onSettleStart() {
+        mLastFrameTimeNanos = 0;
+        mTicker.start();
+    }
+
+    void onIdle(boolean finish) {
+        mTicker.stop();
+        if (!mCaptured) return;
+        mCaptured = false;
+        mGesture.outcome = finish ? SwipeBackMetrics.Gesture.OUTCOME_FINISH : SwipeBackMetrics.Gesture.OUTCOME_SNAP_BACK;
+        mMetrics.onGestureEnd(mGesture);
+    }
+
+    void release() {
+        mTicker.stop();
+        mCaptured = false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mGesture.settleFrames++;
+        if (mLastFrameTimeNanos != 0) {
+            final long frames = (frameTimeNanos - mLastFrameTimeNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos;
+            if (frames > 1) mGesture.droppedFrames += frames - 1;
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+    }
+}
@@ -0,0 +1,126 @@
+package lib.phenix.com.views;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 一次手势（ACTION_DOWN到ACTION_UP/ACTION_CANCEL）的touch事件序列，纯Java，不依赖Android
+ * <p>
+ * 二进制格式（大端）：
+ * int魔数'SBTR'，byte版本，int宽，int高，int事件数，
+ * 每个事件：short action（MotionEvent#getAction），int距ACTION_DOWN的毫秒数，float x，float y，
+ * x、y为相对SwipeBackLayout的坐标，每个事件14字节
+ */
+public final class GestureTrace {
+
+    private static final int MAGIC = 0x53425452;
+    private static final int VERSION = 1;
+
+    private final int mWidth;
+    private final int mHeight;
+    private int mSize;
+    private int[] mActions = new int[32];
+    private int[] mTimes = new int[32];
+    private float[] mX = new float[32];
+    private float[] mY = new float[32];
+
+    /**
+     * @param width  录制时SwipeBackLayout的宽
+     * @param height 录制时SwipeBackLayout的高
+     */
+    public GestureTrace(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public void add(int action, int timeMillis, float x, float y) {
+        if (mSize == mActions.length) grow();
+        mActions[mSize] = action;
+        mTimes[mSize] = timeMillis;
+        mX[mSize] = x;
+        mY[mSize] = y;
+        mSize++;
+    }
+
+    private void grow() {
+        final int capacity = mSize * 2;
+        int[] actions = new int[capacity];
+        int[] times = new int[capacity];
+        float[] x = new float[capacity];
+        float[] y = new float[capacity];
+        System.arraycopy(mActions, 0, actions, 0, mSize);
+        System.arraycopy(mTimes, 0, times, 0, mSize);
+        System.arraycopy(mX, 0, x, 0, mSize);
+        System.arraycopy(mY, 0, y, 0, mSize);
+        mActions = actions;
+        mTimes = times;
+        mX = x;
+        mY = y;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int getAction(int index) {
+        return mActions[index];
+    }
+
+    /**
+     * @return 距ACTION_DOWN的毫秒数
+     */
+    public int getTime(int index) {
+        return mTimes[index];
+    }
+
+    public float getX(int index) {
+        return mX[index];
+    }
+
+    public float getY(int index) {
+        return mY[index];
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(mWidth);
+        data.writeInt(mHeight);
+        data.writeInt(mSize);
+        for (int i = 0; i < mSize; i++) {
+            data.writeShort(mActions[i]);
+            data.writeInt(mTimes[i]);
+            data.writeFloat(mX[i]);
+            data.writeFloat(mY[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * @throws IOException 格式或版本不对
+     */
+    public static GestureTrace readFrom(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("not a gesture trace");
+        final int version = data.readByte();
+        if (version != VERSION) throw new IOException("unsupported gesture trace version " + version);
+        final GestureTrace trace = new GestureTrace(data.readInt(), data.readInt());
+        final int size = data.readInt();
+        for (int i = 0; i < size; i++) {
+            trace.add(data.readShort(), data.readInt(), data.readFloat(), data.readFloat());
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,186 @@
+package lib.phenix.com.views;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 把 {@link GestureTrace} 逐个事件交给SwipeBackLayout#dispatchTouchEvent
+ * （经过onInterceptTouchEvent/onTouchEvent），统计每个事件的线程CPU时间、对象分配数，
+ * 以及判定的方向和松手后的结果，用来复现、对比手势处理的回归
+ * <p>
+ * 需在主线程调用，SwipeBackLayout已完成布局且尺寸与录制时相同（见GestureTrace#getWidth）；
+ * 事件坐标相对SwipeBackLayout，不需要attach到窗口，也可以在JVM上用Robolectric回放（见views/src/test中的GestureReplayTest）
+ */
+public final class GestureTracePlayer {
+
+    /**
+     * 没有拖动主视图
+     */
+    public static final int OUTCOME_NONE = 0;
+    public static final int OUTCOME_FINISH = SwipeBackMetrics.Gesture.OUTCOME_FINISH;
+    public static final int OUTCOME_SNAP_BACK = SwipeBackMetrics.Gesture.OUTCOME_SNAP_BACK;
+
+    @IntDef({OUTCOME_NONE, OUTCOME_FINISH, OUTCOME_SNAP_BACK})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Outcome {
+    }
+
+    public static final class Result {
+        final long[] cpuTimeNanos;
+        final int[] allocations;
+        int direction;
+        int outcome;
+
+        Result(int size) {
+            cpuTimeNanos = new long[size];
+            allocations = new int[size];
+        }
+
+        public int size() {
+            return cpuTimeNanos.length;
+        }
+
+        /**
+         * @return 第index个事件分发的线程CPU时间
+         */
+        public long getCpuTimeNanos(int index) {
+            return cpuTimeNanos[index];
+        }
+
+        /**
+         * @return 第index个事件分发过程中的对象分配数
+         */
+        public int getAllocations(int index) {
+            return allocations[index];
+        }
+
+        public long getTotalCpuTimeNanos() {
+            long total = 0;
+            for (long time : cpuTimeNanos) total += time;
+            return total;
+        }
+
+        public int getTotalAllocations() {
+            int total = 0;
+            for (int count : allocations) total += count;
+            return total;
+        }
+
+        @SwipeBackLayout.DragDirection
+        public int getDirection() {
+            return direction;
+        }
+
+        @Outcome
+        public int getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * 方向、结果和CPU时间汇总，用于断言信息和日志
+         */
+        @Override
+        public String toString() {
+            return "direction=" + direction + " outcome=" + outcome
+                    + " cpu=" + getTotalCpuTimeNanos() / 1000 + "us/" + size() + " events"
+                    + " allocations=" + getTotalAllocations();
+        }
+    }
+
+    /**
+     * 统计每个事件分发的线程CPU时间和对象分配数
+     */
+    interface Meter {
+        void start();
+
+        void stop();
+
+        /**
+         * 一个事件分发前调用
+         */
+        void beginEvent();
+
+        long cpuTimeNanos();
+
+        /**
+         * @return beginEvent之后的对象分配数
+         */
+        int allocations();
+    }
+
+    /**
+     * 设备上使用Debug统计
+     */
+    @SuppressWarnings("deprecation")
+    static final Meter DEBUG_METER = new Meter() {
+        @Override
+        public void start() {
+            Debug.startAllocCounting();
+        }
+
+        @Override
+        public void stop() {
+            Debug.stopAllocCounting();
+        }
+
+        @Override
+        public void beginEvent() {
+            Debug.resetThreadAllocCount();
+        }
+
+        @Override
+        public long cpuTimeNanos() {
+            return Debug.threadCpuTimeNanos();
+        }
+
+        @Override
+        public int allocations() {
+            return Debug.getThreadAllocCount();
+        }
+    };
+
+    private GestureTracePlayer() {
+    }
+
+    /**
+     * 回放一个手势，结束后停止settle并把主视图放回原位
+     */
+    public static Result replay(@NonNull SwipeBackLayout layout, @NonNull GestureTrace trace) {
+        return replay(layout, trace, DEBUG_METER);
+    }
+
+    /**
+     * @param meter JVM上（Robolectric）回放时替换Debug的统计
+     */
+    static Result replay(@NonNull SwipeBackLayout layout, @NonNull GestureTrace trace, @NonNull Meter meter) {
+        final Result result = new Result(trace.size());
+        final long downTime = SystemClock.uptimeMillis();
+        meter.start();
+        try {
+            for (int i = 0, size = trace.size(); i < size; i++) {
+                final MotionEvent ev = MotionEvent.obtain(downTime, downTime + trace.getTime(i),
+                        trace.getAction(i), trace.getX(i), trace.getY(i), 0);
+                meter.beginEvent();
+                final long start = meter.cpuTimeNanos();
+                layout.dispatchTouchEvent(ev);
+                result.cpuTimeNanos[i] = meter.cpuTimeNanos() - start;
+                result.allocations[i] = meter.allocations();
+                ev.recycle();
+                if (layout.mCurDragDirection != SwipeBackLayout.NONE) {
+                    result.direction = layout.mCurDragDirection;
+                }
+            }
+        } finally {
+            meter.stop();
+        }
+        result.outcome = layout.getReplayOutcome();
+        layout.resetAfterReplay();
+        return result;
+    }
+}
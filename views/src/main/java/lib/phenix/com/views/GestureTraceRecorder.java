@@ -0,0 +1,85 @@
+package lib.phenix.com.views;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.view.MotionEvent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 录制SwipeBackLayout收到的touch事件，每个完整手势生成一个 {@link GestureTrace}，
+ * 通过 {@link SwipeBackLayout#setGestureTraceRecorder(GestureTraceRecorder)} 设置，
+ * 用 {@link GestureTracePlayer} 回放。只用于调试，会分配对象
+ */
+public class GestureTraceRecorder {
+
+    private static final String TAG = "GestureTraceRecorder";
+
+    public interface Callback {
+        /**
+         * 一个手势录制完成（ACTION_UP或ACTION_CANCEL）
+         */
+        void onTraceRecorded(GestureTrace trace);
+    }
+
+    private final Callback mCallback;
+    private GestureTrace mTrace;
+    private long mDownTime;
+
+    public GestureTraceRecorder(@NonNull Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * 每个手势写入dir下的一个文件，文件名为trace-ACTION_DOWN的时间.sbt
+     *
+     * @param dir 目录，如getExternalFilesDir("traces")
+     */
+    public static GestureTraceRecorder toDirectory(@NonNull final File dir) {
+        return new GestureTraceRecorder(new Callback() {
+            @Override
+            public void onTraceRecorded(GestureTrace trace) {
+                if (!dir.isDirectory() && !dir.mkdirs()) return;
+                final File file = new File(dir, "trace-" + System.currentTimeMillis() + ".sbt");
+                OutputStream out = null;
+                try {
+                    out = new FileOutputStream(file);
+                    trace.writeTo(out);
+                } catch (IOException e) {
+                    Log.w(TAG, "write trace failed: " + file, e);
+                } finally {
+                    if (null != out) {
+                        try {
+                            out.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @param ev     SwipeBackLayout#dispatchTouchEvent收到的事件
+     * @param width  SwipeBackLayout的宽
+     * @param height SwipeBackLayout的高
+     */
+    void record(MotionEvent ev, int width, int height) {
+        final int action = ev.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mTrace = new GestureTrace(width, height);
+            mDownTime = ev.getDownTime();
+        }
+        //格式只保存一个手指，多指按下、抬起的事件不录制
+        if (null == mTrace || action == MotionEvent.ACTION_POINTER_DOWN || action == MotionEvent.ACTION_POINTER_UP) return;
+        mTrace.add(ev.getAction(), (int) (ev.getEventTime() - mDownTime), ev.getX(), ev.getY());
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            final GestureTrace trace = mTrace;
+            mTrace = null;
+            mCallback.onTraceRecorded(trace);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package lib.phenix.com.views;
+
+/**
+ * 释放时关闭界面还是回到原位的判断，纯Java，不依赖Android
+ */
+final class ReleasePolicy {
+
+    private ReleasePolicy() {
+    }
+
+    /**
+     * 快速滑动（fling）优先：朝关闭方向的速度超过阈值且拖动距离足够则关闭，
+     * 朝原位方向的速度超过阈值则回到原位，否则按拖动距离判断
+     *
+     * @param dragOffset        drag偏移量
+     * @param range             该方向的drag范围
+     * @param finishFactor      finish因子[0,1]
+     * @param velocity          释放速度，朝关闭方向为正，px/s
+     * @param minFlingVelocity  fling最小速度，px/s
+     * @param minFlingDistance  fling最小拖动距离，px
+     * @return 是否关闭界面
+     */
+    static boolean shouldFinish(int dragOffset, int range, float finishFactor,
+                                float velocity, float minFlingVelocity, int minFlingDistance) {
+        if (velocity >= minFlingVelocity && dragOffset >= minFlingDistance) return true;
+        if (velocity <= -minFlingVelocity) return false;
+        return dragOffset >= range * finishFactor;
+    }
+
+    /**
+     * @param direction DragDirections
+     * @param xvel      x方向速度
+     * @param yvel      y方向速度
+     * @return 朝关闭方向的速度
+     */
+    static float exitVelocity(int direction, float xvel, float yvel) {
+        switch (direction) {
+            case DragDirections.LEFT:
+                return xvel;
+            case DragDirections.RIGHT:
+                return -xvel;
+            case DragDirections.UP:
+                return yvel;
+            case DragDirections.DOWN:
+                return -yvel;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param direction DragDirections
+     * @param finish    是否关闭界面
+     * @param origin    原始位置
+     * @param range     该方向的drag范围
+     * @return settle的目标位置
+     */
+    static int finalPosition(int direction, boolean finish, int origin, int range) {
+        if (!finish) return origin;
+        return direction == DragDirections.LEFT || direction == DragDirections.UP ? range : -range;
+    }
+}
@@ -0,0 +1,171 @@
+package lib.phenix.com.views;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import java.util.ArrayList;
+
+/**
+ * 可滑动子View索引
+ * 只在布局树变化（OnHierarchyChangeListener / OnGlobalLayoutListener）后重建一次，
+ * touch事件中只做按坐标查找，不再每个事件都递归遍历整棵View树
+ * <p>
+ * 索引按深度优先顺序保存，并记录每个节点子树的结束位置，
+ * 查找时跳过不包含touch点的子树，返回touch点下最内层的可滑动View
+ * <p>
+ * SCROLLABLE（如RecyclerView、AbsListView）的子View会被回收复用，不进索引；
+ * 查找时只沿touch点下的那一条分支向下命中测试，找出其中嵌套的可滑动View（如竖直列表中的横向列表）
+ * <p>
+ * 坐标相对重建时的根View，按各级left/top、translation和父View的scroll计算，
+ * 不依赖getLocationOnScreen，没有attach到窗口时（如回放）同样可用
+ */
+class ScrollTargetIndex {
+
+    /**
+     * 索引到的可滑动View，深度优先顺序
+     */
+    private final ArrayList<View> mTargets = new ArrayList<>();
+    /**
+     * mSkip[i] 为第i个节点子树结束后的下一个位置
+     */
+    private int[] mSkip = new int[16];
+    /**
+     * 重建时的根View，查找坐标相对于它
+     */
+    private View mRoot;
+
+    private boolean mDirty = true;
+    /**
+     * 重建次数
+     */
+    private int mRebuildCount;
+
+    /**
+     * 标记索引失效，下一次查找前重建
+     */
+    void invalidate() {
+        mDirty = true;
+    }
+
+    boolean isDirty() {
+        return mDirty;
+    }
+
+    int getRebuildCount() {
+        return mRebuildCount;
+    }
+
+    /**
+     * 重建索引
+     *
+     * @param root 主视图
+     */
+    void rebuild(View root) {
+        mTargets.clear();
+        mRoot = root;
+        if (root instanceof ViewGroup) {
+            collect((ViewGroup) root);
+        }
+        mDirty = false;
+        mRebuildCount++;
+    }
+
+    /**
+     * 可滑动类型见 {@link ScrollableResolver}
+     * 只有SCROLL_CONTAINER会继续向下索引
+     */
+    private void collect(ViewGroup target) {
+        final int count = target.getChildCount();
+        for (int i = 0; i < count; i++) {
+            final View child = target.getChildAt(i);
+            final int kind = ScrollableResolver.resolve(child);
+            if (kind != ScrollableResolver.NOT_SCROLLABLE) {
+                final int index = mTargets.size();
+                mTargets.add(child);
+                if (kind == ScrollableResolver.SCROLL_CONTAINER && child instanceof ViewGroup) {
+                    collect((ViewGroup) child);
+                }
+                if (index >= mSkip.length) {
+                    int[] skip = new int[mSkip.length * 2];
+                    System.arraycopy(mSkip, 0, skip, 0, mSkip.length);
+                    mSkip = skip;
+                }
+                mSkip[index] = mTargets.size();
+            } else if (child instanceof ViewGroup) {
+                collect((ViewGroup) child);
+            }
+        }
+    }
+
+    /**
+     * 按touch坐标查找可滑动View
+     *
+     * @param x 相对根View的x
+     * @param y 相对根View的y
+     * @return touch点下最内层的可滑动View，没有则返回null
+     */
+    View find(float x, float y) {
+        View found = null;
+        final int size = mTargets.size();
+        int i = 0;
+        while (i < size) {
+            final View view = mTargets.get(i);
+            if (contains(view, x, y)) {
+                found = view;
+                i++;
+            } else {
+                i = mSkip[i];
+            }
+        }
+        if (null != found && ScrollableResolver.resolve(found) == ScrollableResolver.SCROLLABLE) {
+            found = findInAdapterView(found, x, y);
+        }
+        return found;
+    }
+
+    /**
+     * 从不进索引的可滑动View（如RecyclerView）向下，逐层取touch点下最上面的子View，O(深度)
+     *
+     * @return 这条分支上最内层的可滑动View
+     */
+    private View findInAdapterView(View target, float x, float y) {
+        View found = target;
+        View view = target;
+        while (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            View hit = null;
+            for (int i = group.getChildCount() - 1; i >= 0; i--) {
+                final View child = group.getChildAt(i);
+                if (contains(child, x, y)) {
+                    hit = child;
+                    break;
+                }
+            }
+            if (null == hit) break;
+            if (ScrollableResolver.resolve(hit) != ScrollableResolver.NOT_SCROLLABLE) found = hit;
+            view = hit;
+        }
+        return found;
+    }
+
+    /**
+     * view及其到根View之间的各级都可见，且(x, y)在view范围内
+     */
+    private boolean contains(View view, float x, float y) {
+        float left = 0;
+        float top = 0;
+        View current = view;
+        while (current != mRoot) {
+            if (current.getVisibility() != View.VISIBLE) return false;
+            left += current.getLeft() + current.getTranslationX();
+            top += current.getTop() + current.getTranslationY();
+            final ViewParent parent = current.getParent();
+            if (!(parent instanceof View)) return false;
+            current = (View) parent;
+            left -= current.getScrollX();
+            top -= current.getScrollY();
+        }
+        return x >= left && x < left + view.getWidth() && y >= top && y < top + view.getHeight();
+    }
+}
@@ -0,0 +1,114 @@
+package lib.phenix.com.views;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.v4.view.ViewPager;
+import android.support.v4.widget.NestedScrollView;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.webkit.WebView;
+import android.widget.AbsListView;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.IdentityHashMap;
+
+/**
+ * 可滑动View类型注册表，按Class判断，子类同样生效
+ * 每个Class的判断结果会被缓存，查找为O(1)
+ * <p>
+ * 自定义的滑动控件可以这样注册（需在主线程调用）：
+ * ScrollableResolver.register(MyCanvasView.class, ScrollableResolver.SCROLLABLE);
+ * 已经布局好的SwipeBackLayout在下一次布局后生效
+ */
+public final class ScrollableResolver {
+
+    /**
+     * 不可滑动
+     */
+    public static final int NOT_SCROLLABLE = 0;
+    /**
+     * 可滑动，子View会被回收复用（如RecyclerView），其内部不进索引，查找时只沿touch点向下命中测试
+     */
+    public static final int SCROLLABLE = 1;
+    /**
+     * 可滑动，其内部还可能有可滑动View（如ViewPager、ScrollView）
+     */
+    public static final int SCROLL_CONTAINER = 2;
+
+    @IntDef({NOT_SCROLLABLE, SCROLLABLE, SCROLL_CONTAINER})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ScrollKind {
+    }
+
+    /**
+     * 注册的类型
+     */
+    private static final IdentityHashMap<Class<?>, Integer> sRegistered = new IdentityHashMap<>();
+    /**
+     * 每个具体Class的判断结果缓存
+     */
+    private static final IdentityHashMap<Class<?>, Integer> sCache = new IdentityHashMap<>();
+
+    static {
+        sRegistered.put(AbsListView.class, SCROLLABLE);
+        sRegistered.put(RecyclerView.class, SCROLLABLE);
+        sRegistered.put(WebView.class, SCROLLABLE);
+        sRegistered.put(ScrollView.class, SCROLL_CONTAINER);
+        sRegistered.put(NestedScrollView.class, SCROLL_CONTAINER);
+        sRegistered.put(HorizontalScrollView.class, SCROLL_CONTAINER);
+        sRegistered.put(ViewPager.class, SCROLL_CONTAINER);
+    }
+
+    private ScrollableResolver() {
+    }
+
+    /**
+     * 注册可滑动类型，其子类同样生效
+     * 注册为NOT_SCROLLABLE可以排除某个已注册类型的子类
+     *
+     * @param type View类型
+     * @param kind ScrollKind
+     */
+    public static void register(@NonNull Class<? extends View> type, @ScrollKind int kind) {
+        sRegistered.put(type, kind);
+        sCache.clear();
+    }
+
+    /**
+     * 取消注册
+     *
+     * @param type View类型
+     */
+    public static void unregister(@NonNull Class<? extends View> type) {
+        sRegistered.remove(type);
+        sCache.clear();
+    }
+
+    /**
+     * 判断view的滑动类型
+     *
+     * @param view 目标view
+     * @return ScrollKind
+     */
+    @ScrollKind
+    public static int resolve(@NonNull View view) {
+        final Class<?> clazz = view.getClass();
+        Integer kind = sCache.get(clazz);
+        if (null == kind) {
+            kind = NOT_SCROLLABLE;
+            for (Class<?> c = clazz; c != View.class && c != null; c = c.getSuperclass()) {
+                final Integer registered = sRegistered.get(c);
+                if (null != registered) {
+                    kind = registered;
+                    break;
+                }
+            }
+            sCache.put(clazz, kind);
+        }
+        //noinspection WrongConstant
+        return kind;
+    }
+}
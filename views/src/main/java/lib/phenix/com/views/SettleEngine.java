@@ -0,0 +1,33 @@
+package lib.phenix.com.views;
+
+/**
+ * 释放后主视图归位/退出的动画引擎，一维，沿拖动方向
+ * 由SwipeBackLayout每帧调用 {@link #step(long)}，实现中不要分配对象
+ * 通过 {@link SwipeBackLayout#setSettleEngine(SettleEngine)} 替换，默认为 {@link SpringSettleEngine}
+ */
+public interface SettleEngine {
+
+    /**
+     * 开始动画
+     *
+     * @param position       当前位置，px
+     * @param target         目标位置，px
+     * @param velocity       初速度，px/s
+     * @param startTimeNanos 开始时间，System.nanoTime()时间基
+     */
+    void start(float position, float target, float velocity, long startTimeNanos);
+
+    /**
+     * 计算frameTimeNanos时刻的位置，到达目标后isRunning()返回false
+     *
+     * @return 当前位置，px
+     */
+    float step(long frameTimeNanos);
+
+    boolean isRunning();
+
+    /**
+     * 中途停止，例如手指重新按下接管拖动
+     */
+    void stop();
+}
@@ -0,0 +1,338 @@
+package lib.phenix.com.views;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * 界面截图缓存，按字节数LRU淘汰，淘汰的Bitmap放入复用池，下次截图时复用
+ * 正在作为背景使用（{@link #acquire(String)}之后、{@link #release(Bitmap)}之前）的Bitmap被淘汰时不放入复用池，归还后再放入
+ * <p>
+ * 通过 {@link #install(Application)} 安装为进程内共享的服务后：
+ * 只有被 {@link #requestCapture(String)} 请求过的Activity在onStop时截图，销毁时移除，并记录Activity栈，
+ * SwipeBackLayout通过 {@link SwipeBackLayout#setBackdropKey(String)} 请求下层界面截图，在拖动开始时取得。
+ * 收到onTrimMemory时按级别缩减或清空缓存。
+ * 只能在主线程调用
+ */
+public class SnapshotCache implements ComponentCallbacks2, Application.ActivityLifecycleCallbacks {
+
+    /**
+     * 默认缩放比例，截图宽高各缩小一半，绘制时再放大
+     */
+    public static final float DEFAULT_SCALE = 0.5f;
+    /**
+     * 复用池最多保留的Bitmap数
+     */
+    private static final int MAX_POOL_SIZE = 2;
+
+    private static SnapshotCache sInstance;
+
+    private final LruCache<String, Bitmap> mCache;
+    private final ArrayList<Bitmap> mPool = new ArrayList<>(MAX_POOL_SIZE);
+    /**
+     * Activity栈，按创建顺序保存key
+     */
+    private final ArrayList<String> mStack = new ArrayList<>();
+    /**
+     * 请求截图的key，每次请求一项，可以重复
+     */
+    private final ArrayList<String> mRequested = new ArrayList<>();
+    /**
+     * 正在作为背景使用的Bitmap，每次取出一项，可以重复
+     */
+    private final ArrayList<Bitmap> mCheckedOut = new ArrayList<>();
+    /**
+     * 使用中被移出缓存的Bitmap，全部归还后放入复用池
+     */
+    private final ArrayList<Bitmap> mDetached = new ArrayList<>();
+    private float mScale = DEFAULT_SCALE;
+
+    /**
+     * @param maxBytes 缓存上限，字节
+     */
+    public SnapshotCache(int maxBytes) {
+        mCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return byteSize(value);
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue) recycleToPool(oldValue);
+            }
+        };
+    }
+
+    /**
+     * 安装进程内共享的截图缓存，重复调用返回同一个实例
+     *
+     * @param application Application
+     * @return SnapshotCache
+     */
+    public static SnapshotCache install(@NonNull Application application) {
+        if (null == sInstance) {
+            sInstance = new SnapshotCache(defaultMaxBytes(application));
+            application.registerComponentCallbacks(sInstance);
+            application.registerActivityLifecycleCallbacks(sInstance);
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return 已安装的实例，未安装返回null
+     */
+    @Nullable
+    public static SnapshotCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * 默认缓存上限，应用可用内存的1/16
+     */
+    public static int defaultMaxBytes(Context context) {
+        final ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        return am.getMemoryClass() * 1024 * 1024 / 16;
+    }
+
+    /**
+     * @return activity对应的缓存key
+     */
+    public static String keyOf(@NonNull Activity activity) {
+        return activity.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(activity));
+    }
+
+    private static int byteSize(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    /**
+     * 自动截图的缩放比例
+     *
+     * @param scale (0,1]
+     */
+    public void setScale(float scale) {
+        this.mScale = scale;
+    }
+
+    /**
+     * 截取view并缓存，优先复用池中尺寸相同的Bitmap
+     *
+     * @param key   缓存key
+     * @param view  一般为window的decorView
+     * @param scale 缩放比例(0,1]
+     * @return 截图，view还没有布局时返回null
+     */
+    @Nullable
+    public Bitmap capture(@NonNull String key, @NonNull View view, float scale) {
+        final int width = (int) (view.getWidth() * scale);
+        final int height = (int) (view.getHeight() * scale);
+        if (width <= 0 || height <= 0) return null;
+        //同一个key的旧截图先移出，可以直接复用
+        mCache.remove(key);
+        Bitmap bitmap = obtainFromPool(width, height);
+        if (null == bitmap) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        } else {
+            bitmap.eraseColor(Color.BLACK);
+        }
+        final Canvas canvas = new Canvas(bitmap);
+        canvas.scale(scale, scale);
+        view.draw(canvas);
+        mCache.put(key, bitmap);
+        return bitmap;
+    }
+
+    @Nullable
+    public Bitmap get(@NonNull String key) {
+        return mCache.get(key);
+    }
+
+    public void remove(@NonNull String key) {
+        mCache.remove(key);
+    }
+
+    /**
+     * 取出key对应的截图作为背景使用，使用完必须 {@link #release(Bitmap)}
+     * 使用中被淘汰或被新截图替换时不会被复用或回收
+     *
+     * @return 截图，没有返回null
+     */
+    @Nullable
+    public Bitmap acquire(@NonNull String key) {
+        final Bitmap bitmap = mCache.get(key);
+        if (null != bitmap) mCheckedOut.add(bitmap);
+        return bitmap;
+    }
+
+    /**
+     * 归还 {@link #acquire(String)} 取出的截图
+     */
+    public void release(@NonNull Bitmap bitmap) {
+        if (!mCheckedOut.remove(bitmap)) return;
+        if (!mCheckedOut.contains(bitmap) && mDetached.remove(bitmap)) {
+            recycleToPool(bitmap);
+        }
+    }
+
+    /**
+     * 请求key对应的Activity在onStop时截图，没有请求的Activity不截图
+     * 与 {@link #cancelCapture(String)} 成对调用
+     */
+    public void requestCapture(@NonNull String key) {
+        mRequested.add(key);
+    }
+
+    public void cancelCapture(@NonNull String key) {
+        mRequested.remove(key);
+    }
+
+    /**
+     * @return activity下层界面的key，没有返回null
+     */
+    @Nullable
+    public String previousKeyOf(@NonNull Activity activity) {
+        final int index = mStack.lastIndexOf(keyOf(activity));
+        return index > 0 ? mStack.get(index - 1) : null;
+    }
+
+    private Bitmap obtainFromPool(int width, int height) {
+        for (int i = mPool.size() - 1; i >= 0; i--) {
+            final Bitmap bitmap = mPool.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                return mPool.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private void recycleToPool(Bitmap bitmap) {
+        if (bitmap.isRecycled()) return;
+        if (mCheckedOut.contains(bitmap)) {
+            //还在作为背景绘制，归还后再复用
+            if (!mDetached.contains(bitmap)) mDetached.add(bitmap);
+            return;
+        }
+        if (mPool.size() >= MAX_POOL_SIZE) {
+            mPool.remove(0).recycle();
+        }
+        mPool.add(bitmap);
+    }
+
+    private void clearPool() {
+        for (int i = 0, size = mPool.size(); i < size; i++) {
+            mPool.get(i).recycle();
+        }
+        mPool.clear();
+    }
+
+    /**
+     * @return 缓存中截图占用字节数
+     */
+    public int getBytesInUse() {
+        return mCache.size();
+    }
+
+    /**
+     * @return 复用池中Bitmap占用字节数
+     */
+    public int getPoolBytes() {
+        int bytes = 0;
+        for (int i = 0, size = mPool.size(); i < size; i++) {
+            bytes += byteSize(mPool.get(i));
+        }
+        return bytes;
+    }
+
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return 命中率[0,1]
+     */
+    public float getHitRate() {
+        final int total = mCache.hitCount() + mCache.missCount();
+        return total == 0 ? 0 : mCache.hitCount() * 1f / total;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            mCache.evictAll();
+            clearPool();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            mCache.trimToSize(mCache.maxSize() / 2);
+            clearPool();
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            clearPool();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mCache.evictAll();
+        clearPool();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        mStack.add(keyOf(activity));
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        final String key = keyOf(activity);
+        mStack.remove(key);
+        mCache.remove(key);
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+    }
+
+    /**
+     * 上层界面的SwipeBackLayout在创建时请求截图，onStop时已经请求过；
+     * 没有请求的Activity（如最上层、不可拖动的界面下层）不做整个decorView的软件绘制
+     */
+    @Override
+    public void onActivityStopped(Activity activity) {
+        final String key = keyOf(activity);
+        if (!activity.isFinishing() && null != activity.getWindow() && mRequested.contains(key)) {
+            capture(key, activity.getWindow().getDecorView(), mScale);
+        }
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+}
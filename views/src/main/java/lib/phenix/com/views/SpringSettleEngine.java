@@ -0,0 +1,73 @@
+package lib.phenix.com.views;
+
+/**
+ * 临界阻尼弹簧，纯Java，不依赖Android
+ * x(t) = target + (c1 + c2 * t) * e^(-ωt)，c1 = x0 - target，c2 = v0 + ω * c1
+ * start时算好系数，每帧只计算一次指数，没有累计误差，不会停在半路；
+ * 越过目标（初速度较大时）或足够接近目标即结束
+ */
+public class SpringSettleEngine implements SettleEngine {
+
+    /**
+     * 默认刚度，ω = 25
+     */
+    public static final float DEFAULT_STIFFNESS = 625f;
+    /**
+     * 距离目标小于该值且速度小于REST_VELOCITY时结束，px
+     */
+    private static final float REST_DISTANCE = 0.5f;
+    /**
+     * px/s
+     */
+    private static final float REST_VELOCITY = 50f;
+
+    private float mOmega = (float) Math.sqrt(DEFAULT_STIFFNESS);
+
+    private float mTarget;
+    private float mC1;
+    private float mC2;
+    private long mStartTimeNanos;
+    private boolean mRunning;
+
+    /**
+     * @param stiffness 刚度，越大越快，质量为1
+     */
+    public void setStiffness(float stiffness) {
+        mOmega = (float) Math.sqrt(stiffness);
+    }
+
+    @Override
+    public void start(float position, float target, float velocity, long startTimeNanos) {
+        mTarget = target;
+        mC1 = position - target;
+        mC2 = velocity + mOmega * mC1;
+        mStartTimeNanos = startTimeNanos;
+        mRunning = mC1 != 0;
+    }
+
+    @Override
+    public float step(long frameTimeNanos) {
+        if (!mRunning) return mTarget;
+        final float t = Math.max(0, frameTimeNanos - mStartTimeNanos) / 1e9f;
+        final float decay = (float) Math.exp(-mOmega * t);
+        final float offset = (mC1 + mC2 * t) * decay;
+        final float velocity = (mC2 - mOmega * (mC1 + mC2 * t)) * decay;
+        //越过目标，或已经静止
+        if (offset * mC1 <= 0
+                || (Math.abs(offset) < REST_DISTANCE && Math.abs(velocity) < REST_VELOCITY)) {
+            mRunning = false;
+            return mTarget;
+        }
+        return mTarget + offset;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    @Override
+    public void stop() {
+        mRunning = false;
+    }
+}
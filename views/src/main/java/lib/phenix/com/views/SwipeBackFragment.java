@@ -0,0 +1,174 @@
+package lib.phenix.com.views;
+
+import android.os.Bundle;
+import android.support.annotation.IdRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.UUID;
+
+/**
+ * 支持swipe back的Fragment，一个Activity内多个界面不再需要多个透明Activity
+ * 界面完全划出后从FragmentManager回退栈中弹出添加它的那一条记录（按 {@link #getBackStackName()}）
+ * <p>
+ * 使用：
+ * fragment.show(getSupportFragmentManager(), R.id.container);
+ * 或者
+ * getSupportFragmentManager().beginTransaction()
+ * .add(R.id.container, fragment) //用add而不是replace，下层Fragment才会保留在下面
+ * .addToBackStack(fragment.getBackStackName())
+ * .commit();
+ * 主布局需要设置背景色
+ */
+public abstract class SwipeBackFragment extends Fragment {
+
+    private static final String KEY_BACK_STACK_NAME = "lib.phenix.com.views.SwipeBackFragment.backStackName";
+
+    private SwipeBackLayout mSwipeBackLayout;
+    /**
+     * 添加本Fragment的回退栈记录名
+     */
+    private String mBackStackName;
+    /**
+     * 宿主已经保存状态（onSaveInstanceState之后到onStart之前），不能再提交回退栈操作
+     */
+    private boolean mStateSaved;
+    /**
+     * 状态保存后划出的，等onStart时再弹出
+     */
+    private boolean mPendingPop;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (null != savedInstanceState) {
+            mBackStackName = savedInstanceState.getString(KEY_BACK_STACK_NAME);
+        }
+    }
+
+    @Nullable
+    @Override
+    public final View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        final View contentView = onCreateContentView(inflater, container, savedInstanceState);
+        if (null == contentView) return null;
+        mSwipeBackLayout = new SwipeBackLayout(getContext(), contentView, getDragDirectionMask());
+        mSwipeBackLayout.setStackLayer(true);
+        mSwipeBackLayout.setOnSwipeBackListener(new SwipeBackLayout.OnSwipeBackListener() {
+            @Override
+            public boolean onIntercept(@SwipeBackLayout.DragDirection int direction, float touchX, float touchY) {
+                return onSwipeBackPre(direction, touchX, touchY);
+            }
+
+            @Override
+            public void onViewPositionChanged(float fraction) {
+            }
+
+            @Override
+            public void onAnimationEnd() {
+                popSelf();
+            }
+        });
+        return mSwipeBackLayout;
+    }
+
+    /**
+     * 创建主布局，inflate时attachToRoot需为false
+     */
+    @Nullable
+    protected abstract View onCreateContentView(LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState);
+
+    /**
+     * @return 可以划动的方向，类似LEFT | UP
+     */
+    protected int getDragDirectionMask() {
+        return SwipeBackLayout.LEFT;
+    }
+
+    /**
+     * 拦截某个方向的划动
+     *
+     * @return true 拦截
+     */
+    public boolean onSwipeBackPre(@SwipeBackLayout.DragDirection int direction, float x, float y) {
+        return false;
+    }
+
+    public SwipeBackLayout getSwipeBackLayout() {
+        return mSwipeBackLayout;
+    }
+
+    /**
+     * @return 添加本Fragment时addToBackStack使用的记录名，每个实例唯一，重建后保持不变
+     */
+    @NonNull
+    public String getBackStackName() {
+        if (null == mBackStackName) {
+            mBackStackName = getClass().getName() + "#" + UUID.randomUUID();
+        }
+        return mBackStackName;
+    }
+
+    /**
+     * 添加到containerViewId并加入回退栈，记录名为 {@link #getBackStackName()}
+     *
+     * @return commit的返回值
+     */
+    public int show(@NonNull FragmentManager fragmentManager, @IdRes int containerViewId) {
+        return fragmentManager.beginTransaction()
+                .add(containerViewId, this)
+                .addToBackStack(getBackStackName())
+                .commit();
+    }
+
+    /**
+     * 界面完全划出后弹出添加本Fragment的回退栈记录（连同其上的记录），不在回退栈中则直接移除；
+     * 宿主已经保存状态时等onStart再弹出
+     */
+    private void popSelf() {
+        final FragmentManager fragmentManager = getFragmentManager();
+        if (null == fragmentManager || isRemoving()) return;
+        if (mStateSaved) {
+            mPendingPop = true;
+            return;
+        }
+        mPendingPop = false;
+        if (isInBackStack(fragmentManager)) {
+            fragmentManager.popBackStack(mBackStackName, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+        } else {
+            fragmentManager.beginTransaction().remove(this).commitAllowingStateLoss();
+        }
+    }
+
+    private boolean isInBackStack(FragmentManager fragmentManager) {
+        if (null == mBackStackName) return false;
+        for (int i = fragmentManager.getBackStackEntryCount() - 1; i >= 0; i--) {
+            if (mBackStackName.equals(fragmentManager.getBackStackEntryAt(i).getName())) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        mStateSaved = false;
+        if (mPendingPop) popSelf();
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        mStateSaved = true;
+        if (null != mBackStackName) outState.putString(KEY_BACK_STACK_NAME, mBackStackName);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        mSwipeBackLayout = null;
+    }
+}
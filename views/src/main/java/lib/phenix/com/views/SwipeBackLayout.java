@@ -1,29 +1,37 @@
 package lib.phenix.com.views;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.support.annotation.IntDef;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.view.AsyncLayoutInflater;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
 import android.support.v4.view.ViewCompat;
-import android.support.v4.view.ViewPager;
-import android.support.v4.widget.NestedScrollView;
 import android.support.v4.widget.ViewDragHelper;
-import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.webkit.WebView;
-import android.widget.AbsListView;
+import android.view.ViewConfiguration;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
-import android.widget.HorizontalScrollView;
-import android.widget.ScrollView;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
 
 /**
  *
@@ -70,22 +78,44 @@ import java.lang.annotation.RetentionPolicy;
  * super.setContentView(swipeBackLayout);
  * }
  */
-public class SwipeBackLayout extends FrameLayout {
+public class SwipeBackLayout extends FrameLayout implements NestedScrollingParent {
+
+    /**
+     * 调试日志开关，编译期常量，关闭时日志代码（包括字符串拼接）会被编译器去掉，
+     * 保证drag、clamp、position change、settle过程中没有对象分配
+     */
+    private static final boolean DEBUG = false;
+    private static final String TAG = "SwipeBackLayout";
 
     /**
      * 定义代表方向的常量
      */
-    public static final int NONE = 0;
-    public static final int LEFT = 1;
-    public static final int UP = 1 << 1;
-    public static final int RIGHT = 1 << 2;
-    public static final int DOWN = 1 << 3;
+    public static final int NONE = DragDirections.NONE;
+    public static final int LEFT = DragDirections.LEFT;
+    public static final int UP = DragDirections.UP;
+    public static final int RIGHT = DragDirections.RIGHT;
+    public static final int DOWN = DragDirections.DOWN;
 
     @IntDef({NONE,LEFT, UP, RIGHT, DOWN})
     @Retention(RetentionPolicy.SOURCE)
     public @interface DragDirection {
     }
 
+    /**
+     * 拖动方式：通过offsetLeftAndRight/offsetTopAndBottom移动主视图（默认）
+     */
+    public static final int DRAG_MODE_LAYOUT = 0;
+    /**
+     * 拖动方式：通过setTranslationX/Y移动主视图，不改变布局位置，
+     * 拖动过程中主视图requestLayout（如图片加载完成）不会把主视图拉回原位
+     */
+    public static final int DRAG_MODE_TRANSLATION = 1;
+
+    @IntDef({DRAG_MODE_LAYOUT, DRAG_MODE_TRANSLATION})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface DragMode {
+    }
+
     /**
      * 滑动方向mask
      */
@@ -100,24 +130,185 @@ public class SwipeBackLayout extends FrameLayout {
      * 使用步骤①②③④⑤
      */
     private final ViewDragHelper mViewDragHelper;
+    private final ViewDragHelperCallback mDragCallback = new ViewDragHelperCallback();
+
+    /**
+     * 释放后的归位/退出动画，替代ViewDragHelper的Scroller
+     */
+    private SettleEngine mSettleEngine = new SpringSettleEngine();
+    private final FrameTicker mSettleTicker = FrameTicker.create(new FrameTicker.Callback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            stepSettle(frameTimeNanos);
+        }
+    });
+    /**
+     * settle的轴向、目标位置，以及位置限制范围（原位到拖动一侧的边界）
+     */
+    private boolean mSettleHorizontal;
+    private int mSettleFinalPosition;
+    private int mSettleMin;
+    private int mSettleMax;
+    /**
+     * 退出时目标位置越过drag范围的比例，到达范围边界即结束，避免弹簧末尾的慢速收敛
+     */
+    private static final float EXIT_OVERSHOOT = 0.1f;
+
+    /**
+     * 嵌套滑动：RecyclerView、NestedScrollView等滑到边缘后未消费的距离直接用来拖动主视图，
+     * 不再轮询canScrollVertically/Horizontally
+     */
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+    /**
+     * 当前拖动是否由嵌套滑动驱动
+     */
+    private boolean mNestedDragging;
+    /**
+     * 嵌套滑动结束前收到的fling速度（主视图移动方向），px/s
+     */
+    private float mNestedVelocityX;
+    private float mNestedVelocityY;
 
     /**
      * 主视图view
      */
     private View mContentView;
-    private View mShadowView;
+    /**
+     * 拖动、settle中设置的新主视图，回到STATE_IDLE时替换
+     */
+    private View mPendingContentView;
+    /**
+     * 异步inflate的主视图被延迟替换时，替换后再回调
+     */
+    private OnContentInflatedListener mPendingContentListener;
+    /**
+     * app:lazyContent时主视图的布局，第一次measure时才inflate
+     */
+    @LayoutRes
+    private int mContentLayoutId = View.NO_ID;
+    private ContentViewPool mContentViewPool;
     private int mShadowColor = Color.parseColor("#8f000000");
+    /**
+     * 阴影直接在dispatchDraw中绘制，只绘制主视图移开后露出的区域
+     */
+    private final Paint mScrimPaint = new Paint();
+    /**
+     * 阴影透明度因子[0,1]
+     */
+    private float mScrimAlpha = 1;
+
+    /**
+     * 上一个界面的截图，绘制在主视图移开后露出的区域
+     */
+    private Bitmap mBackdrop;
+    /**
+     * 从SnapshotCache取截图的key，拖动开始时取，回到STATE_IDLE时释放
+     */
+    private String mBackdropKey;
+    /**
+     * 是否已向SnapshotCache请求mBackdropKey的截图，detach时取消
+     */
+    private boolean mBackdropRequested;
+    private final Paint mBackdropPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect mBackdropSrc = new Rect();
+    private final Rect mBackdropDst = new Rect();
+
+    /**
+     * 拖动方式
+     */
+    @DragMode
+    private int mDragMode = DRAG_MODE_LAYOUT;
+    /**
+     * DRAG_MODE_TRANSLATION时ViewDragHelper实际拖动的不可见View，
+     * 其位置映射为主视图的translation
+     */
+    private View mDragAnchor;
 
     /**
      * 设置是否可以swipe back
      */
     private boolean enableSwipeBack;
 
+    /**
+     * 只响应从边缘开始的拖动
+     */
+    private boolean mEdgeOnly;
+    /**
+     * 各方向的边缘宽度，px，下标见 {@link #edgeIndex(int)}
+     */
+    private final int[] mEdgeSizes = new int[4];
+    /**
+     * 按下点所在的边缘（方向mask），边缘模式下为NONE时整个手势直接放行
+     */
+    private int mEdgeTouched;
+
+    /**
+     * drag、settle过程中是否将主视图提升为硬件层
+     */
+    private boolean mHardwareLayerOnDrag;
+    /**
+     * 是否作为页面层加入SwipeBackStack
+     */
+    private boolean mStackLayer;
+    /**
+     * 提升为硬件层之前主视图的layerType
+     */
+    private int mSavedLayerType = View.LAYER_TYPE_NONE;
+    private boolean mLayerPromoted;
+
+    /**
+     * 手势性能统计，没有设置SwipeBackMetrics时为null
+     */
+    private GestureMetricsTracker mMetricsTracker;
+
+    /**
+     * 静止时窗口不透明，拖动时才切换为透明，没有开启时为null
+     */
+    private WindowTranslucency mWindowTranslucency;
+
+    /**
+     * 手势录制，调试用，没有设置时为null
+     */
+    private GestureTraceRecorder mTraceRecorder;
+
     /**
      * 记录scroll的child View
      */
     private View mScrollChild;
 
+    /**
+     * 可滑动子View索引，布局变化后重建
+     */
+    private final ScrollTargetIndex mScrollTargetIndex = new ScrollTargetIndex();
+
+    private final ViewTreeObserver.OnGlobalLayoutListener mIndexLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            if (null != mContentView) mScrollTargetIndex.rebuild(mContentView);
+            mDecisionCache.invalidate();
+        }
+    };
+
+    /**
+     * 按下区域 + 方向的判断结果缓存，网格边长
+     */
+    private static final int DECISION_CELL_DP = 48;
+    private DirectionDecisionCache mDecisionCache;
+    /**
+     * 本次手势判定方向时子View是否可以朝该方向滑动，clamp中直接使用，不再每次调用canScroll
+     */
+    private boolean mChildWins;
+
+    /**
+     * 任何子View滚动（包括ViewPager翻页）后，子View能否滑动可能变化，缓存失效
+     */
+    private final ViewTreeObserver.OnScrollChangedListener mDecisionScrollListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            mDecisionCache.invalidate();
+        }
+    };
+
     /**
      * 水平drag的范围
      */
@@ -128,89 +319,704 @@ public class SwipeBackLayout extends FrameLayout {
     int mHorizontalDragRange;
 
     /**
-     * finish 因子，当前界面的范围[0,1]
+     * finish 因子，当前界面的范围[0,1]
+     */
+    float mFinishFactor = 0.3f;
+
+    /**
+     * fling判定的最小速度(px/s)和最小拖动距离(px)
+     */
+    float mMinFlingVelocity;
+    int mMinFlingDistance;
+
+    /**
+     * drag偏移量
+     */
+    int mDragOffset;
+
+    /**
+     * 被拖拽View的原始位置坐标
+     */
+    int mOriginalX;
+    int mOriginalY;
+    /**
+     * touch当前坐标，跟踪的手指相对本View的坐标
+     */
+    float mTouchX;
+    float mTouchY;
+
+    /**
+     * 跟踪的手指，捕获后跟随ViewDragHelper的active pointer
+     */
+    private int mActivePointerId = ViewDragHelper.INVALID_POINTER;
+    /**
+     * 各手指按下时相对本View的坐标，按pointer id索引（MotionEvent的pointer id不超过31），预分配
+     */
+    private final float[] mPointerDownX = new float[32];
+    private final float[] mPointerDownY = new float[32];
+    /**
+     * 屏幕坐标与相对本View坐标的偏移，只用于回调onIntercept
+     */
+    private float mRawOffsetX;
+    private float mRawOffsetY;
+    /**
+     * 本次手势是否已经记过方向判断缓存的命中/未命中
+     */
+    private boolean mDecisionCounted;
+
+    /**
+     * 通过new SwipeBackLayout(Context context, View contentView)调用
+     *
+     * @param context       上下文
+     * @param contentView   主体布局
+     * @param directionMask 类似LEFT | UP
+     */
+    public SwipeBackLayout(@NonNull Context context, @NonNull View contentView, int directionMask) {
+        this(context);
+        this.mContentView = contentView;
+        this.mDragDirectionMask = directionMask;
+        addView(mContentView);
+    }
+
+    /**
+     * 没有主视图，之后通过 {@link #setContentView(View)} 或 {@link #reset(View)} 设置，
+     * 一般配合 {@link SwipeBackLayoutPool} 使用
+     *
+     * @param context 上下文
+     */
+    public SwipeBackLayout(@NonNull Context context) {
+        super(context);
+        mViewDragHelper = ViewDragHelper.create(this, 1.0f, mDragCallback);
+        initViewConfiguration(context);
+        Arrays.fill(mEdgeSizes, mViewDragHelper.getEdgeSize());
+        enableSwipeBack = true;
+        setOnHierarchyChangeListener(mHierarchyChangeListener);
+    }
+
+
+    /**
+     * \
+     * 通过xml布局 自定义属性调用
+     *
+     * @param context 上下文
+     * @param attrs   xml属性
+     */
+    public SwipeBackLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        //①获取ViewDragHelper的实例
+        mViewDragHelper = ViewDragHelper.create(this, 1.0f, mDragCallback);
+        initViewConfiguration(context);
+        TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.SwipeBackLayout);
+        mEdgeOnly = ta.getBoolean(R.styleable.SwipeBackLayout_edgeOnly, false);
+        Arrays.fill(mEdgeSizes, ta.getDimensionPixelSize(R.styleable.SwipeBackLayout_edgeSize, mViewDragHelper.getEdgeSize()));
+        mDragDirectionMask = ta.getInt(R.styleable.SwipeBackLayout_dragDirection, NONE);
+        mShadowColor = ta.getColor(R.styleable.SwipeBackLayout_shadowColor, mShadowColor);
+        mHardwareLayerOnDrag = ta.getBoolean(R.styleable.SwipeBackLayout_hardwareLayerOnDrag, false);
+        final int dragMode = ta.getInt(R.styleable.SwipeBackLayout_dragMode, DRAG_MODE_LAYOUT);
+        int contentLayoutId = ta.getResourceId(R.styleable.SwipeBackLayout_contentView,View.NO_ID);
+        final boolean lazyContent = ta.getBoolean(R.styleable.SwipeBackLayout_lazyContent, false);
+        ta.recycle();
+
+        setOnHierarchyChangeListener(mHierarchyChangeListener);
+
+        if (View.NO_ID != contentLayoutId){
+            mContentLayoutId = contentLayoutId;
+            if (!lazyContent) {
+                mContentView = LayoutInflater.from(context).inflate(contentLayoutId, this, false);
+                addView(mContentView);
+            }
+        }
+        //noinspection WrongConstant
+        setDragMode(dragMode);
+        enableSwipeBack = true;
+    }
+
+    /**
+     * 默认fling阈值、方向判断的touch slop取自ViewConfiguration
+     */
+    private void initViewConfiguration(Context context) {
+        final ViewConfiguration configuration = ViewConfiguration.get(context);
+        mDirectionClassifier = new DirectionClassifier(configuration.getScaledTouchSlop(), DirectionClassifier.DEFAULT_HYSTERESIS);
+        mDecisionCache = new DirectionDecisionCache((int) (DECISION_CELL_DP * context.getResources().getDisplayMetrics().density));
+        mMinFlingVelocity = Math.min(configuration.getScaledMinimumFlingVelocity() * 8,
+                configuration.getScaledMaximumFlingVelocity());
+        mMinFlingDistance = configuration.getScaledTouchSlop() * 2;
+    }
+
+    /**
+     * 子View增删时索引失效
+     */
+    private final OnHierarchyChangeListener mHierarchyChangeListener = new OnHierarchyChangeListener() {
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            mScrollTargetIndex.invalidate();
+            mDecisionCache.invalidate();
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            mScrollTargetIndex.invalidate();
+            mDecisionCache.invalidate();
+        }
+    };
+
+    /**
+     * 替换主视图，拖动、settle中调用时延迟到回到原位后替换（关闭时不再替换）
+     *
+     * @param contentView 新的主视图
+     */
+    public void setContentView(@NonNull View contentView) {
+        mPendingContentListener = null;
+        if (isDragIdle()) {
+            mPendingContentView = null;
+            swapContentView(contentView);
+        } else {
+            mPendingContentView = contentView;
+        }
+    }
+
+    /**
+     * 清除拖动状态以便复用（如RecyclerView中的卡片重新bind）：停止拖动和settle，
+     * 主视图放回原位，清除方向、偏移、阴影和待替换的主视图，不回调onAnimationEnd；
+     * 方向mask、监听、拖动方式等设置保留，ViewDragHelper等对象不重新创建
+     *
+     * @param contentView 新的主视图，null 保留当前主视图
+     */
+    public void reset(@Nullable View contentView) {
+        stopSettle();
+        mNestedDragging = false;
+        mPendingContentView = null;
+        mPendingContentListener = null;
+        //先放回原位再abort：abort会分发STATE_IDLE，主视图不在原位时会被当作关闭而回调onAnimationEnd
+        final View target = getDragTarget();
+        if (null != target) {
+            ViewCompat.offsetLeftAndRight(target, mOriginalX - target.getLeft());
+            ViewCompat.offsetTopAndBottom(target, mOriginalY - target.getTop());
+        }
+        if (null != mContentView) {
+            mContentView.setTranslationX(0);
+            mContentView.setTranslationY(0);
+        }
+        mViewDragHelper.abort();
+        //已在原位，只恢复硬件层、截图等，不会回调onAnimationEnd
+        mDragCallback.dispatchDragState(ViewDragHelper.STATE_IDLE);
+        mCurDragDirection = NONE;
+        mDragOffset = 0;
+        mScrimAlpha = 1;
+        mChildWins = false;
+        mEdgeTouched = NONE;
+        mActivePointerId = ViewDragHelper.INVALID_POINTER;
+        if (null != contentView) swapContentView(contentView);
+        mScrollChild = mContentView;
+        invalidate();
+    }
+
+    /**
+     * 移除主视图（不放回ContentViewPool），之后可以添加到其他父View；
+     * 需在没有拖动时调用，一般在 {@link #reset(View)} 之后
+     *
+     * @return 移除的主视图，没有返回null
+     */
+    @Nullable
+    public View removeContentView() {
+        final View contentView = mContentView;
+        mPendingContentView = null;
+        mPendingContentListener = null;
+        if (null == contentView) return null;
+        removeView(contentView);
+        mContentView = null;
+        mScrollChild = null;
+        return contentView;
+    }
+
+    private boolean isDragIdle() {
+        return mDragCallback.mLastDragState == ViewDragHelper.STATE_IDLE && !mNestedDragging;
+    }
+
+    private void swapContentView(View contentView) {
+        final View old = mContentView;
+        if (old == contentView) return;
+        int index = 0;
+        if (null != old) {
+            index = indexOfChild(old);
+            removeView(old);
+        }
+        mContentView = contentView;
+        addView(contentView, Math.max(index, 0));
+    }
+
+    /**
+     * 在后台线程inflate主视图（AsyncLayoutInflater），完成后替换当前主视图（一般为占位View），
+     * inflate期间可以对占位View拖动
+     *
+     * @param layoutResId 主视图布局
+     * @param listener    替换完成后回调，可以在此findViewById，可为null；
+     *                    inflate完成时正在拖动、settle的，回到原位替换后才回调，界面关闭时不回调
+     */
+    public void inflateContentAsync(@LayoutRes int layoutResId, @Nullable final OnContentInflatedListener listener) {
+        if (null == mContentView) swapContentView(createPlaceholder(getContext()));
+        new AsyncLayoutInflater(getContext()).inflate(layoutResId, this, new AsyncLayoutInflater.OnInflateFinishedListener() {
+            @Override
+            public void onInflateFinished(View view, int resid, ViewGroup parent) {
+                setContentView(view);
+                if (view == mPendingContentView) {
+                    mPendingContentListener = listener;
+                } else if (null != listener) {
+                    listener.onContentInflated(view);
+                }
+            }
+        });
+    }
+
+    /**
+     * 轻量的占位View，背景为主题的colorBackground
+     */
+    public static View createPlaceholder(@NonNull Context context) {
+        final View placeholder = new View(context);
+        final TypedValue value = new TypedValue();
+        if (context.getTheme().resolveAttribute(android.R.attr.colorBackground, value, true)
+                && value.type >= TypedValue.TYPE_FIRST_COLOR_INT && value.type <= TypedValue.TYPE_LAST_COLOR_INT) {
+            placeholder.setBackgroundColor(value.data);
+        }
+        return placeholder;
+    }
+
+    public void setShadowColor(int color) {
+        mShadowColor = color;
+        invalidate();
+    }
+
+    /**
+     * 设置上一个界面的截图（可以是缩小的），拖动时绘制在主视图移开后露出的区域，
+     * 此时下层窗口被截图完全覆盖，见 {@link SnapshotCache}
+     *
+     * @param backdrop null 不绘制
+     */
+    public void setBackdrop(Bitmap backdrop) {
+        mBackdrop = backdrop;
+        invalidate();
+    }
+
+    /**
+     * 拖动开始时从 {@link SnapshotCache#getInstance()} 取key对应的截图作为背景，
+     * 回到STATE_IDLE时释放，静止时不持有截图
+     * 设置后key对应的Activity才会在onStop时截图
+     *
+     * @param key 一般为 {@link SnapshotCache#previousKeyOf(android.app.Activity)}
+     */
+    public void setBackdropKey(String key) {
+        releaseBackdrop();
+        cancelBackdropCapture();
+        mBackdropKey = key;
+        requestBackdropCapture();
+    }
+
+    private void requestBackdropCapture() {
+        final SnapshotCache cache = SnapshotCache.getInstance();
+        if (null != mBackdropKey && null != cache && !mBackdropRequested) {
+            cache.requestCapture(mBackdropKey);
+            mBackdropRequested = true;
+        }
+    }
+
+    private void cancelBackdropCapture() {
+        final SnapshotCache cache = SnapshotCache.getInstance();
+        if (mBackdropRequested && null != cache) cache.cancelCapture(mBackdropKey);
+        mBackdropRequested = false;
+    }
+
+    private void acquireBackdrop() {
+        final SnapshotCache cache = SnapshotCache.getInstance();
+        if (null != mBackdropKey && null != cache && null == mBackdrop) {
+            mBackdrop = cache.acquire(mBackdropKey);
+        }
+    }
+
+    private void releaseBackdrop() {
+        if (null == mBackdropKey) return;
+        final SnapshotCache cache = SnapshotCache.getInstance();
+        if (null != mBackdrop && null != cache) cache.release(mBackdrop);
+        mBackdrop = null;
+    }
+
+    /**
+     * 在主视图下方绘制上一个界面截图和阴影，只覆盖主视图移开后露出的区域
+     * 静止时没有露出区域，不产生额外的overdraw
+     */
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (null != mContentView) {
+            final int left = getContentLeft();
+            final int top = getContentTop();
+            final int right = left + mContentView.getWidth();
+            final int bottom = top + mContentView.getHeight();
+            final int width = getWidth();
+            final int height = getHeight();
+            if (left > 0) drawUncovered(canvas, 0, 0, left, height);
+            if (right < width) drawUncovered(canvas, Math.max(right, 0), 0, width, height);
+            if (top > 0) drawUncovered(canvas, 0, 0, width, top);
+            if (bottom < height) drawUncovered(canvas, 0, Math.max(bottom, 0), width, height);
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    private void drawUncovered(Canvas canvas, int left, int top, int right, int bottom) {
+        if (null != mBackdrop && !mBackdrop.isRecycled() && getWidth() > 0 && getHeight() > 0) {
+            final float scaleX = mBackdrop.getWidth() * 1f / getWidth();
+            final float scaleY = mBackdrop.getHeight() * 1f / getHeight();
+            mBackdropSrc.set((int) (left * scaleX), (int) (top * scaleY), (int) (right * scaleX), (int) (bottom * scaleY));
+            mBackdropDst.set(left, top, right, bottom);
+            canvas.drawBitmap(mBackdrop, mBackdropSrc, mBackdropDst, mBackdropPaint);
+        }
+        if (mScrimAlpha > 0) {
+            final int alpha = (int) (Color.alpha(mShadowColor) * mScrimAlpha);
+            if (alpha > 0) {
+                mScrimPaint.setColor(mShadowColor);
+                mScrimPaint.setAlpha(alpha);
+                canvas.drawRect(left, top, right, bottom, mScrimPaint);
+            }
+        }
+    }
+
+    public boolean isEnableSwipeBack() {
+        return enableSwipeBack;
+    }
+
+    public void setEnableSwipeBack(boolean enableSwipeBack) {
+        this.enableSwipeBack = enableSwipeBack;
+    }
+
+    @DragMode
+    public int getDragMode() {
+        return mDragMode;
+    }
+
+    /**
+     * 设置拖动方式，需在没有拖动时调用
+     *
+     * @param dragMode DRAG_MODE_LAYOUT 或 DRAG_MODE_TRANSLATION
+     */
+    public void setDragMode(@DragMode int dragMode) {
+        if (mDragMode == dragMode) return;
+        mViewDragHelper.abort();
+        mDragMode = dragMode;
+        if (dragMode == DRAG_MODE_TRANSLATION) {
+            if (null == mDragAnchor) {
+                mDragAnchor = new View(getContext());
+                mDragAnchor.setVisibility(INVISIBLE);
+            }
+            addView(mDragAnchor, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        } else if (null != mDragAnchor) {
+            removeView(mDragAnchor);
+            if (null != mContentView) {
+                mContentView.setTranslationX(0);
+                mContentView.setTranslationY(0);
+            }
+        }
+    }
+
+    /**
+     * ViewDragHelper拖动的View
+     */
+    private View getDragTarget() {
+        return mDragMode == DRAG_MODE_TRANSLATION ? mDragAnchor : mContentView;
+    }
+
+    /**
+     * 主视图当前显示位置，包含translation
+     */
+    private int getContentLeft() {
+        return null == mContentView ? mOriginalX : mContentView.getLeft() + (int) mContentView.getTranslationX();
+    }
+
+    private int getContentTop() {
+        return null == mContentView ? mOriginalY : mContentView.getTop() + (int) mContentView.getTranslationY();
+    }
+
+    /**
+     * 设置手势性能统计回调，null取消统计
+     *
+     * @param metrics SwipeBackMetrics
+     */
+    public void setSwipeBackMetrics(SwipeBackMetrics metrics) {
+        if (null != mMetricsTracker) mMetricsTracker.release();
+        mMetricsTracker = null != metrics ? new GestureMetricsTracker(getContext(), metrics) : null;
+    }
+
+    /**
+     * 录制touch事件，用 {@link GestureTracePlayer} 回放，只用于调试
+     *
+     * @param recorder null 停止录制
+     */
+    public void setGestureTraceRecorder(GestureTraceRecorder recorder) {
+        this.mTraceRecorder = recorder;
+    }
+
+    public boolean isTranslucentOnDrag() {
+        return null != mWindowTranslucency;
+    }
+
+    /**
+     * 静止时把Activity窗口切换为不透明，下层窗口不再一直参与合成，
+     * 开始拖动主视图（ViewDragHelper捕获）时切换为透明（异步，下层窗口绘制完成前由截图覆盖），回到原位后切换回不透明
+     * 主题仍需windowIsTranslucent=true，不支持的系统（API 16以下或反射失败）保持透明
+     * SwipeBackFragment等一个Activity内的多个界面不要开启
+     *
+     * @param enable 默认false
+     */
+    public void setTranslucentOnDrag(boolean enable) {
+        if (enable == (null != mWindowTranslucency)) return;
+        if (enable) {
+            final Activity activity = findActivity(getContext());
+            if (null == activity) return;
+            mWindowTranslucency = new WindowTranslucency(activity);
+            if (ViewCompat.isAttachedToWindow(this)) {
+                mWindowTranslucency.warmUp();
+                mWindowTranslucency.convertFromTranslucent();
+            }
+        } else {
+            mWindowTranslucency.convertToTranslucent();
+            mWindowTranslucency = null;
+        }
+    }
+
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) return (Activity) context;
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * 没有拖动、settle时切换回不透明
+     */
+    private void restoreOpaqueIfIdle() {
+        if (null != mWindowTranslucency && !isSettling() && !mNestedDragging
+                && mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE) {
+            mWindowTranslucency.convertFromTranslucent();
+        }
+    }
+
+    public boolean isHardwareLayerOnDrag() {
+        return mHardwareLayerOnDrag;
+    }
+
+    /**
+     * drag、settle过程中将主视图切换为LAYER_TYPE_HARDWARE，回到STATE_IDLE时恢复
+     * 没有性能数据，是否开启请先在目标设备上用gfxinfo对比，见README
+     *
+     * @param enable 默认false
+     */
+    public void setHardwareLayerOnDrag(boolean enable) {
+        this.mHardwareLayerOnDrag = enable;
+    }
+
+    public boolean isStackLayer() {
+        return mStackLayer;
+    }
+
+    /**
+     * 声明为页面层（Activity、Fragment的根布局），加入 {@link SwipeBackStack} 参与视差：
+     * 拖动时下一页面层跟随移动，被下一页面层拖动时自身移动；列表中的卡片等不要开启
+     *
+     * @param stackLayer 默认false
+     */
+    public void setStackLayer(boolean stackLayer) {
+        if (mStackLayer == stackLayer) return;
+        mStackLayer = stackLayer;
+        if (!ViewCompat.isAttachedToWindow(this)) return;
+        if (stackLayer) {
+            SwipeBackStack.get().push(this);
+        } else {
+            SwipeBackStack.get().remove(this);
+        }
+    }
+
+    /**
+     * 设置释放后的动画引擎，需在没有拖动时调用
+     *
+     * @param engine 默认SpringSettleEngine
+     */
+    public void setSettleEngine(@NonNull SettleEngine engine) {
+        stopSettle();
+        mSettleEngine = engine;
+    }
+
+    private boolean isSettling() {
+        return mSettleTicker.isRunning();
+    }
+
+    /**
+     * 开始settle，从当前位置动画到finalPosition
+     *
+     * @param horizontal 水平方向
+     * @param finalPosition 目标left或top
+     * @param velocity 该轴向速度，px/s
+     */
+    private void startSettle(boolean horizontal, int finalPosition, float velocity) {
+        final View target = getDragTarget();
+        if (null == target) return;
+        final int position = horizontal ? target.getLeft() : target.getTop();
+        if (position == finalPosition) return;
+        final int origin = horizontal ? mOriginalX : mOriginalY;
+        final int range = horizontal ? mHorizontalDragRange : mVerticalDragRange;
+        mSettleHorizontal = horizontal;
+        mSettleFinalPosition = finalPosition;
+        final int far = finalPosition != origin ? finalPosition
+                : origin + (position > origin ? range : -range);
+        mSettleMin = Math.min(origin, far);
+        mSettleMax = Math.max(origin, far);
+        float engineTarget = finalPosition;
+        if (finalPosition != origin) {
+            engineTarget += Math.signum(finalPosition - origin) * range * EXIT_OVERSHOOT;
+        }
+        mSettleEngine.start(position, engineTarget, velocity, System.nanoTime());
+        mSettleTicker.start();
+        mDragCallback.dispatchDragState(ViewDragHelper.STATE_SETTLING);
+    }
+
+    private void stepSettle(long frameTimeNanos) {
+        final View target = getDragTarget();
+        int position = Math.round(mSettleEngine.step(frameTimeNanos));
+        //不越过原位，也不越过拖动一侧的边界
+        position = Math.max(mSettleMin, Math.min(position, mSettleMax));
+        if (mSettleHorizontal) {
+            moveDragTarget(position - target.getLeft(), 0);
+        } else {
+            moveDragTarget(0, position - target.getTop());
+        }
+        if (!mSettleEngine.isRunning() || position == mSettleFinalPosition) {
+            stopSettle();
+            mDragCallback.dispatchDragState(ViewDragHelper.STATE_IDLE);
+        }
+    }
+
+    /**
+     * 松手：按拖动距离和速度决定关闭还是回到原位
+     *
+     * @param xvel x方向速度，px/s
+     * @param yvel y方向速度，px/s
      */
-    float mFinishFactor = 0.3f;
+    private void releaseDrag(float xvel, float yvel) {
+        final boolean horizontal = DragDirections.isHorizontal(mCurDragDirection);
+        final int range = horizontal ? mHorizontalDragRange : mVerticalDragRange;
+        final float velocity = ReleasePolicy.exitVelocity(mCurDragDirection, xvel, yvel);
+        final boolean isBack = ReleasePolicy.shouldFinish(mDragOffset, range, mFinishFactor,
+                velocity, mMinFlingVelocity, mMinFlingDistance);
+        final int finalPosition = ReleasePolicy.finalPosition(mCurDragDirection, isBack, horizontal ? mOriginalX : mOriginalY, range);
+        //释放速度作为弹簧初速度，fling越快退出越快
+        startSettle(horizontal, finalPosition, horizontal ? xvel : yvel);
+    }
+
+    private void stopSettle() {
+        mSettleEngine.stop();
+        mSettleTicker.stop();
+    }
 
     /**
-     * drag偏移量
+     * settle中直接跳到终点并回到STATE_IDLE（恢复硬件层、窗口不透明、截图等），用于detach后不会再有帧回调的情况
+     * 不回调onAnimationEnd：detach时（旋转、Activity销毁）宿主可能已经保存状态或正在销毁，不能再执行界面跳转
      */
-    int mDragOffset;
+    private void finishSettle() {
+        if (!isSettling()) return;
+        stopSettle();
+        final View target = getDragTarget();
+        if (null != target) {
+            if (mSettleHorizontal) {
+                moveDragTarget(mSettleFinalPosition - target.getLeft(), 0);
+            } else {
+                moveDragTarget(0, mSettleFinalPosition - target.getTop());
+            }
+        }
+        mDragCallback.dispatchDragState(ViewDragHelper.STATE_IDLE, false);
+    }
 
     /**
-     * 被拖拽View的原始位置坐标
+     * 移动拖动的View，并和ViewDragHelper拖动时一样回调onViewPositionChanged
      */
-    int mOriginalX;
-    int mOriginalY;
+    private void moveDragTarget(int dx, int dy) {
+        final View target = getDragTarget();
+        if ((dx == 0 && dy == 0) || null == target) return;
+        if (dx != 0) ViewCompat.offsetLeftAndRight(target, dx);
+        if (dy != 0) ViewCompat.offsetTopAndBottom(target, dy);
+        mDragCallback.onViewPositionChanged(target, target.getLeft(), target.getTop(), dx, dy);
+    }
+
     /**
-     * touch当前坐标
+     * 释放时朝关闭方向的速度超过该值即关闭界面，不再要求拖过finish因子
+     *
+     * @param velocity px/s
      */
-    float mTouchX;
-    float mTouchY;
+    public void setFlingVelocityThreshold(float velocity) {
+        this.mMinFlingVelocity = velocity;
+    }
 
     /**
-     * 通过new SwipeBackLayout(Context context, View contentView)调用
+     * fling关闭界面要求的最小拖动距离，避免误触
      *
-     * @param context       上下文
-     * @param contentView   主体布局
-     * @param directionMask 类似LEFT | UP
+     * @param distance px
      */
-    public SwipeBackLayout(@NonNull Context context, @NonNull View contentView, int directionMask) {
-        super(context);
-        mViewDragHelper = ViewDragHelper.create(this, 1.0f, new ViewDragHelperCallback());
-        this.mContentView = contentView;
-        this.mDragDirectionMask = directionMask;
-        enableSwipeBack = true;
-        addShadowView(context);
-        addView(mContentView);
+    public void setFlingDistanceThreshold(int distance) {
+        this.mMinFlingDistance = distance;
     }
 
+    public boolean isEdgeOnly() {
+        return mEdgeOnly;
+    }
 
     /**
-     * \
-     * 通过xml布局 自定义属性调用
+     * 只响应从边缘开始的拖动，边缘以外按下的手势在onInterceptTouchEvent中直接放行，
+     * 不做方向判断、子View查找和ViewDragHelper处理；边缘开始的拖动优先于子View滑动
      *
-     * @param context 上下文
-     * @param attrs   xml属性
+     * @param edgeOnly 默认false
      */
-    public SwipeBackLayout(Context context, AttributeSet attrs) {
-        super(context, attrs);
-        //①获取ViewDragHelper的实例
-        mViewDragHelper = ViewDragHelper.create(this, 1.0f, new ViewDragHelperCallback());
-        TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.SwipeBackLayout);
-        mDragDirectionMask = ta.getInt(R.styleable.SwipeBackLayout_dragDirection, NONE);
-        mShadowColor = ta.getColor(R.styleable.SwipeBackLayout_shadowColor, mShadowColor);
-        int contentLayoutId = ta.getResourceId(R.styleable.SwipeBackLayout_contentView,View.NO_ID);
-        ta.recycle();
-
-        addShadowView(context);
-        if (View.NO_ID != contentLayoutId){
-            mContentView = LayoutInflater.from(context).inflate(contentLayoutId, this, false);
-            addView(mContentView);
-        }
-        enableSwipeBack = true;
+    public void setEdgeOnly(boolean edgeOnly) {
+        this.mEdgeOnly = edgeOnly;
     }
 
-    private void addShadowView(Context context) {
-        mShadowView = new View(context);
-        mShadowView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
-        mShadowView.setBackgroundColor(mShadowColor);
-        addView(mShadowView);
+    /**
+     * 设置边缘宽度，LEFT为左边缘，UP为上边缘，依此类推
+     *
+     * @param directionMask 类似LEFT | RIGHT
+     * @param size          px，默认为ViewDragHelper的边缘宽度（20dp）
+     */
+    public void setEdgeSize(int directionMask, int size) {
+        for (int direction = LEFT; direction <= DOWN; direction <<= 1) {
+            if (DragDirections.isAllow(directionMask, direction)) {
+                mEdgeSizes[edgeIndex(direction)] = size;
+            }
+        }
     }
 
-
-    public void setShadowColor(int color) {
-        mShadowView.setBackgroundColor(color);
-        mShadowView.invalidate();
+    /**
+     * @param direction LEFT、UP、RIGHT、DOWN之一
+     * @return 该边缘的宽度，px
+     * @throws IllegalArgumentException direction不是单个方向
+     */
+    public int getEdgeSize(@DragDirection int direction) {
+        if (direction < LEFT || direction > DOWN || (direction & (direction - 1)) != 0) {
+            throw new IllegalArgumentException("direction must be one of LEFT, UP, RIGHT, DOWN: " + direction);
+        }
+        return mEdgeSizes[edgeIndex(direction)];
     }
 
-
-    public boolean isEnableSwipeBack() {
-        return enableSwipeBack;
+    private static int edgeIndex(int direction) {
+        return Integer.numberOfTrailingZeros(direction);
     }
 
-    public void setEnableSwipeBack(boolean enableSwipeBack) {
-        this.enableSwipeBack = enableSwipeBack;
+    /**
+     * @param x 相对本View的x
+     * @param y 相对本View的y
+     * @return 该点所在的、允许拖动的边缘
+     */
+    private int touchedEdges(float x, float y) {
+        int edges = NONE;
+        if (x < mEdgeSizes[edgeIndex(LEFT)]) edges |= LEFT;
+        if (y < mEdgeSizes[edgeIndex(UP)]) edges |= UP;
+        if (x >= getWidth() - mEdgeSizes[edgeIndex(RIGHT)]) edges |= RIGHT;
+        if (y >= getHeight() - mEdgeSizes[edgeIndex(DOWN)]) edges |= DOWN;
+        return edges & mDragDirectionMask;
     }
 
     public void setDragDirectionMask(int mDragDirectionMask) {
@@ -242,7 +1048,7 @@ public class SwipeBackLayout extends FrameLayout {
      * @return boolean
      */
     private boolean isAllowDragDirection(int direction) {
-        return direction == (mDragDirectionMask & direction);
+        return DragDirections.isAllow(mDragDirectionMask, direction);
     }
 
 
@@ -253,7 +1059,7 @@ public class SwipeBackLayout extends FrameLayout {
      * @return boolean
      */
     public boolean isNotAllowDragDirection(int direction) {
-        return (mDragDirectionMask & direction) == 0;
+        return DragDirections.isNotAllow(mDragDirectionMask, direction);
     }
 
     /**
@@ -263,57 +1069,198 @@ public class SwipeBackLayout extends FrameLayout {
      * @return boolean
      */
     public boolean isOnlyAllowDragDirection(int direction) {
-        return mDragDirectionMask == direction;
+        return DragDirections.isOnlyAllow(mDragDirectionMask, direction);
     }
 
     /**
      * 动态new的方式不会调用该方法
+     * app:contentView优先于节点内的子View；app:lazyContent时主视图在第一次measure时才创建
      */
     @Override
     protected void onFinishInflate() {
         super.onFinishInflate();
-        if (null == mContentView && getChildCount() > 0) {
-            mContentView = getChildAt(getChildCount() - 1);
-        }else{
-            throw new IllegalStateException("请为您的SwipeBackLayout添加一个View或xml布局文件");
+        if (null != mContentView || View.NO_ID != mContentLayoutId) return;
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            final View child = getChildAt(i);
+            if (child != mDragAnchor) {
+                mContentView = child;
+                return;
+            }
         }
+        throw new IllegalStateException("请为您的SwipeBackLayout添加一个View或xml布局文件");
+    }
 
+    /**
+     * 设置主视图池，app:lazyContent时优先从池中取主视图
+     *
+     * @param pool null 不使用
+     */
+    public void setContentViewPool(ContentViewPool pool) {
+        this.mContentViewPool = pool;
     }
 
     /**
-     * Find out the scrollable child view
-     * 这里添加了常用的一些可滑动类，特殊类需要添加
+     * app:lazyContent时立即创建主视图（优先从池中取），已有主视图时直接返回
      *
-     * @param target targetView
+     * @return 主视图，没有设置app:contentView且没有主视图时返回null
      */
-    private void findScrollView(ViewGroup target) {
-        final int count = target.getChildCount();
-        if (count > 0) {
-            for (int i = 0; i < count; i++) {
-                final View child = target.getChildAt(i);
-                if (child instanceof AbsListView
-                        || isInstanceOfClass(child, ScrollView.class.getName())
-                        || isInstanceOfClass(child, NestedScrollView.class.getName())
-                        || isInstanceOfClass(child, RecyclerView.class.getName())
-                        || child instanceof HorizontalScrollView
-                        || child instanceof ViewPager
-                        || child instanceof WebView) {
-                    mScrollChild = child;
-                    break;
-                } else if (child instanceof ViewGroup) {
-                    findScrollView((ViewGroup) child);
-                }
-            }
+    @Nullable
+    public View ensureContentView() {
+        if (createLazyContent()) requestLayout();
+        return mContentView;
+    }
+
+    /**
+     * @return 是否创建了主视图
+     */
+    private boolean createLazyContent() {
+        if (null != mContentView || View.NO_ID == mContentLayoutId) return false;
+        View contentView = null != mContentViewPool ? mContentViewPool.acquire(mContentLayoutId) : null;
+        if (null == contentView) {
+            contentView = LayoutInflater.from(getContext()).inflate(mContentLayoutId, this, false);
+        }
+        mContentView = contentView;
+        //可能在measure中，由调用者决定是否requestLayout
+        addViewInLayout(contentView, 0, null != contentView.getLayoutParams()
+                ? contentView.getLayoutParams() : generateDefaultLayoutParams());
+        return true;
+    }
+
+    /**
+     * app:lazyContent时把主视图移除并放回池中，下一次measure时重新创建，
+     * 用于分页容器中不再显示的界面；拖动中或没有设置池时不做任何事
+     *
+     * @return 是否放回了池中
+     */
+    public boolean recycleContentView() {
+        if (null == mContentView || null == mContentViewPool || View.NO_ID == mContentLayoutId
+                || !isDragIdle()) return false;
+        final View contentView = mContentView;
+        mContentView = null;
+        removeView(contentView);
+        contentView.setTranslationX(0);
+        contentView.setTranslationY(0);
+        mContentViewPool.release(mContentLayoutId, contentView);
+        return true;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        createLazyContent();
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    /**
+     * 可滑动子View索引重建次数
+     *
+     * @return int
+     */
+    public int getScrollIndexRebuildCount() {
+        return mScrollTargetIndex.getRebuildCount();
+    }
+
+    /**
+     * 按touch坐标从索引中找出最内层的可滑动子View，不遍历View树
+     * 找不到时使用主视图本身
+     *
+     * @param x 相对本View的x
+     * @param y 相对本View的y
+     */
+    private void resolveScrollChild(float x, float y) {
+        if (!(mContentView instanceof ViewGroup)) {
+            mScrollChild = mContentView;
+            return;
+        }
+        if (mScrollTargetIndex.isDirty()) {
+            mScrollTargetIndex.rebuild(mContentView);
+        }
+        final View target = mScrollTargetIndex.find(x - getContentLeft(), y - getContentTop());
+        mScrollChild = null != target ? target : mContentView;
+    }
+
+    /**
+     * 方向判定后决定子View滑动还是swipe back，按下区域有缓存时不再查找子View、调用canScroll
+     *
+     * @param direction 判定的方向
+     */
+    private void decideChildWins(int direction) {
+        if (mEdgeOnly) {
+            //边缘拖动优先于子View滑动，不需要查找子View
+            mChildWins = false;
+            return;
         }
-        if (mScrollChild == null) mScrollChild = target;
+        final float x = mPointerDownX[mActivePointerId];
+        final float y = mPointerDownY[mActivePointerId];
+        final int decision = mDecisionCache.get(x, y, direction);
+        if (!mDecisionCounted) {
+            //onIntercept拦截后方向会重置，同一手势后续MOVE还会走到这里，只记第一次
+            mDecisionCounted = true;
+            mDecisionCache.countLookup(decision != DirectionDecisionCache.UNKNOWN);
+        }
+        if (decision != DirectionDecisionCache.UNKNOWN) {
+            mChildWins = decision == DirectionDecisionCache.CHILD_WINS;
+            return;
+        }
+        resolveScrollChild(x, y);
+        switch (direction) {
+            case LEFT:
+                mChildWins = childCanScrollRight();
+                break;
+            case RIGHT:
+                mChildWins = childCanScrollLeft();
+                break;
+            case UP:
+                mChildWins = childCanScrollDown();
+                break;
+            case DOWN:
+                mChildWins = childCanScrollUp();
+                break;
+            default:
+                mChildWins = true;
+                break;
+        }
+        mDecisionCache.put(x, y, direction, mChildWins);
     }
 
+    /**
+     * 方向判断缓存命中次数，每个手势最多记一次（命中或未命中）
+     */
+    public int getDirectionCacheHitCount() {
+        return mDecisionCache.getHitCount();
+    }
 
-    private boolean isInstanceOfClass(Object o1, String className) {
-        return o1.getClass().getName() == className;
+    public int getDirectionCacheMissCount() {
+        return mDecisionCache.getMissCount();
+    }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mScrollTargetIndex.invalidate();
+        getViewTreeObserver().addOnGlobalLayoutListener(mIndexLayoutListener);
+        getViewTreeObserver().addOnScrollChangedListener(mDecisionScrollListener);
+        mDecisionCache.invalidate();
+        if (mStackLayer) SwipeBackStack.get().push(this);
+        requestBackdropCapture();
+        if (null != mWindowTranslucency) {
+            mWindowTranslucency.warmUp();
+            mWindowTranslucency.convertFromTranslucent();
+        }
     }
 
+    @SuppressWarnings("deprecation")
+    @Override
+    protected void onDetachedFromWindow() {
+        getViewTreeObserver().removeGlobalOnLayoutListener(mIndexLayoutListener);
+        getViewTreeObserver().removeOnScrollChangedListener(mDecisionScrollListener);
+        finishSettle();
+        //拖动中被移除时不会回到STATE_IDLE，这里归还截图
+        releaseBackdrop();
+        cancelBackdropCapture();
+        if (null != mMetricsTracker) mMetricsTracker.release();
+        SwipeBackStack.get().remove(this);
+        super.onDetachedFromWindow();
+    }
 
     /**
      * 当view的大小发生变化时触发
@@ -322,28 +1269,23 @@ public class SwipeBackLayout extends FrameLayout {
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
+        mDecisionCache.setSize(w, h);
         mVerticalDragRange = h;
         mHorizontalDragRange = w;
     }
 
-    /**
-     * 父view 要求他内部的子view的mScrollX和mScrollY发生变化时,通常情况下子view使用Scroller对象进行动画滚动
-     * 重写computeScroll()的原因:
-     * 调用startScroll()是不会有滚动效果的，只有在computeScroll()获取滚动情况，做出滚动的响应
-     */
-    @Override
-    public void computeScroll() {
-        super.computeScroll();
-        if (mViewDragHelper.continueSettling(true)) {
-            ViewCompat.postInvalidateOnAnimation(this);
-        }
-    }
-
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
+        if (null == mContentView) return;
         mOriginalX =  mContentView.getLeft();
         mOriginalY =  mContentView.getTop();
+        if (mDragMode == DRAG_MODE_TRANSLATION) {
+            //主视图的translation不受布局影响，拖动中的锚点按translation放回原处
+            final int x = getContentLeft();
+            final int y = getContentTop();
+            mDragAnchor.layout(x, y, x + mContentView.getWidth(), y + mContentView.getHeight());
+        }
     }
 
     /**
@@ -358,8 +1300,29 @@ public class SwipeBackLayout extends FrameLayout {
          */
         @Override
         public boolean tryCaptureView(View child, int pointerId) {
-            Log.e("zhou","============tryCaptureView=============="+(mContentView==child));
-            return child == mContentView && enableSwipeBack;
+            if (DEBUG) Log.d(TAG, "tryCaptureView: " + (mContentView == child));
+            return child == getDragTarget() && enableSwipeBack
+                    && (!mEdgeOnly || mEdgeTouched != NONE || child == mViewDragHelper.getCapturedView());
+        }
+
+        @Override
+        public void onViewCaptured(View capturedChild, int activePointerId) {
+            super.onViewCaptured(capturedChild, activePointerId);
+            //捕获前ViewDragHelper已经通过clampViewPosition询问过onIntercept，被应用拦截（如打开抽屉）、
+            //子View滑动的手势不会走到这里，窗口保持不透明
+            if (null != mWindowTranslucency) mWindowTranslucency.convertToTranslucent();
+            if (null != mMetricsTracker) mMetricsTracker.onCaptured();
+        }
+
+        /**
+         * DRAG_MODE_TRANSLATION时让ViewDragHelper在最上层找到锚点View
+         */
+        @Override
+        public int getOrderedChildIndex(int index) {
+            if (mDragMode == DRAG_MODE_TRANSLATION && index == getChildCount() - 1) {
+                return indexOfChild(mDragAnchor);
+            }
+            return index;
         }
 
 
@@ -380,33 +1343,18 @@ public class SwipeBackLayout extends FrameLayout {
          */
         @Override
         public int clampViewPositionHorizontal(View child, int left, int dx) {
-            int leftBounds;
-            int rightBounds;
-            if (isAllowDragDirection(LEFT) && !childCanScrollRight() && left >= mOriginalX && mCurDragDirection == LEFT) {
-                leftBounds = getPaddingLeft();
-                rightBounds = mHorizontalDragRange;
-                if (null != mOnSwipeBackCallback
-                        && mOnSwipeBackCallback.onIntercept(mCurDragDirection, mTouchX, mTouchY)
-                        && mCurDragDirection != NONE
-                        ) {
-                    mCurDragDirection = NONE;
-                    return mOriginalX;
-                }
-                return Math.min(Math.max(left, leftBounds), rightBounds);
-            }
-            if (isAllowDragDirection(RIGHT) && !childCanScrollLeft() && left <= mOriginalX && mCurDragDirection == RIGHT) {
-                leftBounds = -mHorizontalDragRange;
-                rightBounds = getPaddingLeft();
+            if (null != mMetricsTracker) mMetricsTracker.onClamp();
+            final boolean childCanScroll = !DragDirections.isHorizontal(mCurDragDirection) || mChildWins;
+            if (!childCanScroll
+                    && isAllowDragDirection(mCurDragDirection)
+                    && DragBounds.isOnDragSide(mCurDragDirection, left, mOriginalX)) {
                 if (null != mOnSwipeBackCallback
-                        && mOnSwipeBackCallback.onIntercept(mCurDragDirection, mTouchX, mTouchY)
-                        && mCurDragDirection != NONE
-                        ) {
+                        && mOnSwipeBackCallback.onIntercept(mCurDragDirection, mTouchX + mRawOffsetX, mTouchY + mRawOffsetY)) {
                     mCurDragDirection = NONE;
                     return mOriginalX;
                 }
-                return Math.min(Math.max(left, leftBounds), rightBounds);
+                return DragBounds.clamp(mCurDragDirection, left, getPaddingLeft(), mHorizontalDragRange);
             }
-
             return mOriginalX;
         }
 
@@ -415,52 +1363,18 @@ public class SwipeBackLayout extends FrameLayout {
          */
         @Override
         public int clampViewPositionVertical(final View child, final int top, final int dy) {
-            if (mScrollChild instanceof ViewPager) {
-                final ViewPager pager = (ViewPager) mScrollChild;
-                mScrollChild = pager.getChildAt(pager.getCurrentItem());
-                final int cacheCount = pager.getChildCount();
-                int[] points = new int[2];
-                for (int i = 0; i < cacheCount; i++) {
-                    View view = pager.getChildAt(i);
-                    view.getLocationInWindow(points);
-                    if (mTouchX >= points[0] && mTouchX < points[0] + view.getWidth()) {
-                        mScrollChild = view;
-                        break;
-                    }
-
-                }
-            }
-            int topBounds;
-            int bottomBounds;
-            if (isAllowDragDirection(UP)
-                    && !childCanScrollDown()
-                    && top >= mOriginalY
-                    && mCurDragDirection == UP) {
-                topBounds = getPaddingTop();
-                bottomBounds = mVerticalDragRange;
-                if (null != mOnSwipeBackCallback
-                        && mOnSwipeBackCallback.onIntercept(mCurDragDirection, mTouchX, mTouchY)
-                        && mCurDragDirection != NONE
-                        ) {
-                    mCurDragDirection = NONE;
-                    return mOriginalY;
-                }
-                return Math.min(Math.max(top, topBounds), bottomBounds);
-            }
-            if (isAllowDragDirection(DOWN)
-                    && !childCanScrollUp()
-                    && top <= mOriginalY
-                    && mCurDragDirection == DOWN) {
-                topBounds = -mVerticalDragRange;
-                bottomBounds = getPaddingTop();
+            if (null != mMetricsTracker) mMetricsTracker.onClamp();
+            final boolean childCanScroll = mCurDragDirection == NONE
+                    || DragDirections.isHorizontal(mCurDragDirection) || mChildWins;
+            if (!childCanScroll
+                    && isAllowDragDirection(mCurDragDirection)
+                    && DragBounds.isOnDragSide(mCurDragDirection, top, mOriginalY)) {
                 if (null != mOnSwipeBackCallback
-                        && mOnSwipeBackCallback.onIntercept(mCurDragDirection, mTouchX, mTouchY)
-                        && mCurDragDirection != NONE
-                        ) {
+                        && mOnSwipeBackCallback.onIntercept(mCurDragDirection, mTouchX + mRawOffsetX, mTouchY + mRawOffsetY)) {
                     mCurDragDirection = NONE;
                     return mOriginalY;
                 }
-                return Math.min(Math.max(top, topBounds), bottomBounds);
+                return DragBounds.clamp(mCurDragDirection, top, getPaddingTop(), mVerticalDragRange);
             }
             return mOriginalY;
         }
@@ -469,10 +1383,17 @@ public class SwipeBackLayout extends FrameLayout {
         @Override
         public void onViewPositionChanged(View changedView, int left, int top, int dx, int dy) {
             super.onViewPositionChanged(changedView, left, top, dx, dy);
-            mDragOffset = dx != 0 ? Math.abs(left) : Math.abs(top);
-            Log.e("zhou",mCurDragDirection+"===="+dx+"======onViewPositionChanged======"+dy+"====="+mDragOffset);
-            final float fraction = mDragOffset * 1.0f / (dx != 0 ? mHorizontalDragRange : mVerticalDragRange);
-            mShadowView.setAlpha(1 - fraction);
+            if (mDragMode == DRAG_MODE_TRANSLATION && null != mContentView) {
+                mContentView.setTranslationX(left - mOriginalX);
+                mContentView.setTranslationY(top - mOriginalY);
+            }
+            final boolean horizontal = mCurDragDirection != NONE ? DragDirections.isHorizontal(mCurDragDirection) : dx != 0;
+            mDragOffset = horizontal ? Math.abs(left - mOriginalX) : Math.abs(top - mOriginalY);
+            if (DEBUG) Log.d(TAG, "onViewPositionChanged: direction=" + mCurDragDirection + " dx=" + dx + " dy=" + dy + " offset=" + mDragOffset);
+            final float fraction = Math.min(1, mDragOffset * 1.0f / (horizontal ? mHorizontalDragRange : mVerticalDragRange));
+            mScrimAlpha = 1 - fraction;
+            invalidate();
+            if (mStackLayer) SwipeBackStack.get().onLayerMoved(SwipeBackLayout.this, mCurDragDirection, fraction);
             if (null != mOnSwipeBackCallback) {
                 mOnSwipeBackCallback.onViewPositionChanged(fraction);
             }
@@ -481,107 +1402,241 @@ public class SwipeBackLayout extends FrameLayout {
         @Override
         public void onViewDragStateChanged(int state) {
             super.onViewDragStateChanged(state);
-            /***
-             * 【用户体验问题】
-             * 处理当状态从ViewDragHelper.STATE_SETTLING --> STATE_DRAGGING  --> STATE_IDLE 这样一个过程时，造成拖拽的View动画强制结束，未回到指定位置
-             * 【问题重现】
-             * 拖拽释放，当View还处在STATE_SETTLING状态时，快速点击View，造成state变换如上面描述过程，并停在该位置
-             */
-            if (mLastDragState == ViewDragHelper.STATE_SETTLING && state == ViewDragHelper.STATE_DRAGGING) {
-                if (mViewDragHelper.smoothSlideViewTo(mContentView, mOriginalX, mOriginalY)) {
-                    ViewCompat.postInvalidateOnAnimation(SwipeBackLayout.this);
-                }
-            }
+            //释放后由SettleEngine动画，ViewDragHelper此时已经是STATE_IDLE
+            if (state == ViewDragHelper.STATE_IDLE && isSettling()) return;
+            dispatchDragState(state);
+        }
+
+        /**
+         * 拖动状态变化，包括ViewDragHelper的拖动和SettleEngine的settle
+         * settle中手指按下时直接接管为STATE_DRAGGING，继续从当前位置拖动
+         */
+        void dispatchDragState(int state) {
+            dispatchDragState(state, true);
+        }
 
+        /**
+         * @param notify false 回到STATE_IDLE时不回调onAnimationEnd，窗口总是恢复不透明（detach时）
+         */
+        void dispatchDragState(int state, boolean notify) {
+            if (state == mLastDragState) return;
+            final boolean finish = getContentLeft() != mOriginalX || getContentTop() != mOriginalY;
+            if (state == ViewDragHelper.STATE_SETTLING && null != mMetricsTracker) {
+                mMetricsTracker.onSettleStart();
+            }
             if ((mLastDragState == ViewDragHelper.STATE_DRAGGING || mLastDragState == ViewDragHelper.STATE_SETTLING)
                     && state == ViewDragHelper.STATE_IDLE) {
-                if (null != mOnSwipeBackCallback && (mContentView.getLeft() != mOriginalX || mContentView.getTop() != mOriginalY )){
+                if (null != mMetricsTracker) mMetricsTracker.onIdle(finish);
+                if (null != mOnSwipeBackCallback && finish && notify) {
                     mOnSwipeBackCallback.onAnimationEnd();
                 }
 
             }
+            if (mLastDragState == ViewDragHelper.STATE_IDLE && state != ViewDragHelper.STATE_IDLE) {
+                acquireBackdrop();
+                //ViewDragHelper捕获时已经开始切换，这里用于嵌套滑动驱动的拖动
+                if (null != mWindowTranslucency) mWindowTranslucency.convertToTranslucent();
+            } else if (state == ViewDragHelper.STATE_IDLE) {
+                releaseBackdrop();
+                SwipeBackStack.get().onLayerIdle(SwipeBackLayout.this);
+                //关闭时保持透明直到Activity结束
+                if (null != mWindowTranslucency && (!finish || !notify)) mWindowTranslucency.convertFromTranslucent();
+            }
+            updateContentLayer(state);
             if (state == ViewDragHelper.STATE_IDLE) mCurDragDirection = NONE;
-            Log.e("zhou","------onViewDragStateChanged----------"+state);
+            if (DEBUG) Log.d(TAG, "onViewDragStateChanged: " + state);
             mLastDragState = state;
+            if (state == ViewDragHelper.STATE_IDLE && null != mPendingContentView) {
+                final View contentView = mPendingContentView;
+                final OnContentInflatedListener listener = mPendingContentListener;
+                mPendingContentView = null;
+                mPendingContentListener = null;
+                if (!finish) {
+                    swapContentView(contentView);
+                    if (null != listener) listener.onContentInflated(contentView);
+                }
+            }
+        }
+
+        /**
+         * 开始拖动时提升主视图为硬件层，回到STATE_IDLE时恢复
+         */
+        private void updateContentLayer(int state) {
+            if (null == mContentView) return;
+            if (state != ViewDragHelper.STATE_IDLE) {
+                if (mHardwareLayerOnDrag && !mLayerPromoted
+                        && mContentView.getLayerType() != View.LAYER_TYPE_HARDWARE) {
+                    mSavedLayerType = mContentView.getLayerType();
+                    mContentView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                    mLayerPromoted = true;
+                }
+            } else if (mLayerPromoted) {
+                mContentView.setLayerType(mSavedLayerType, null);
+                mLayerPromoted = false;
+            }
         }
 
         @Override
         public void onViewReleased(View releasedChild, float xvel, float yvel) {
             super.onViewReleased(releasedChild, xvel, yvel);
-            boolean isBack;
-
-            int finalLeft, finalTop;
-            switch (mCurDragDirection) {
-                case LEFT:
-                    isBack = mDragOffset >= mHorizontalDragRange * mFinishFactor;
-                    finalLeft = isBack ? mHorizontalDragRange : mOriginalX;
-                    if (mViewDragHelper.settleCapturedViewAt(finalLeft, mOriginalY)) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeBackLayout.this);
-                    }
-                    break;
-                case RIGHT:
-                    isBack = mDragOffset >= mHorizontalDragRange * mFinishFactor;
-                    finalLeft = isBack ? -mHorizontalDragRange : mOriginalX;
-                    if (mViewDragHelper.settleCapturedViewAt(finalLeft, mOriginalY)) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeBackLayout.this);
-                    }
-                    break;
-                case UP:
-                    isBack = mDragOffset >= mVerticalDragRange * mFinishFactor;
-                    finalTop = isBack ? mVerticalDragRange : mOriginalY;
-                    if (mViewDragHelper.settleCapturedViewAt(mOriginalX, finalTop)) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeBackLayout.this);
-                    }
-                    break;
-                case DOWN:
-                    isBack = mDragOffset >= mVerticalDragRange * mFinishFactor;
-                    finalTop = isBack ? -mVerticalDragRange : mOriginalY;
-                    if (mViewDragHelper.settleCapturedViewAt(mOriginalX, finalTop)) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeBackLayout.this);
-                    }
-                    break;
-            }
+            if (mCurDragDirection == NONE) return;
+            releaseDrag(xvel, yvel);
+        }
+
+
+    }
 
+
+    /**
+     * 方向判断，超过touch slop且角度明确后才判定，一个手势内不再改变
+     */
+    private DirectionClassifier mDirectionClassifier;
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (null != mTraceRecorder) mTraceRecorder.record(ev, getWidth(), getHeight());
+        final int action = ev.getActionMasked();
+        //捕获后事件直接交给onTouchEvent，不再经过onInterceptTouchEvent，在这里跟踪手指才能覆盖整个手势
+        trackPointers(ev, action);
+        final boolean handled = super.dispatchTouchEvent(ev);
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            //兜底：手势结束时已经回到STATE_IDLE（如捕获后没有移动就松手），切换回不透明
+            restoreOpaqueIfIdle();
         }
+        return handled;
+    }
 
+    /**
+     * 记录各手指按下的位置，更新跟踪的手指及其坐标mTouchX、mTouchY
+     * 第二个手指按下不会被当作移动；跟踪的手指抬起时换到另一个手指，方向未判定时以该手指按下的位置重新判断
+     */
+    private void trackPointers(MotionEvent ev, int action) {
+        //getRawX只有第一个手指的，各手指的屏幕坐标与相对坐标的偏移相同
+        mRawOffsetX = ev.getRawX() - ev.getX();
+        mRawOffsetY = ev.getRawY() - ev.getY();
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                mDecisionCounted = false;
+                mActivePointerId = ev.getPointerId(0);
+                savePointerDown(ev, 0);
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                savePointerDown(ev, ev.getActionIndex());
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                final int upIndex = ev.getActionIndex();
+                if (ev.getPointerId(upIndex) == mActivePointerId) {
+                    final int newIndex = upIndex == 0 ? 1 : 0;
+                    mActivePointerId = ev.getPointerId(newIndex);
+                    if (mCurDragDirection == NONE) {
+                        mDirectionClassifier.reset(mPointerDownX[mActivePointerId], mPointerDownY[mActivePointerId]);
+                    }
+                }
+                break;
+            default:
+                final int dragPointerId = mViewDragHelper.getActivePointerId();
+                if (dragPointerId != ViewDragHelper.INVALID_POINTER) mActivePointerId = dragPointerId;
+                break;
+        }
+        int index = ev.findPointerIndex(mActivePointerId);
+        if (index < 0) {
+            index = 0;
+            mActivePointerId = ev.getPointerId(0);
+        }
+        mTouchX = ev.getX(index);
+        mTouchY = ev.getY(index);
+    }
 
+    private void savePointerDown(MotionEvent ev, int index) {
+        final int pointerId = ev.getPointerId(index);
+        mPointerDownX[pointerId] = ev.getX(index);
+        mPointerDownY[pointerId] = ev.getY(index);
     }
 
+    /**
+     * 回放结束时的结果，见 {@link GestureTracePlayer}
+     */
+    int getReplayOutcome() {
+        if (!isSettling()) return GestureTracePlayer.OUTCOME_NONE;
+        final int origin = mSettleHorizontal ? mOriginalX : mOriginalY;
+        return mSettleFinalPosition != origin ? GestureTracePlayer.OUTCOME_FINISH : GestureTracePlayer.OUTCOME_SNAP_BACK;
+    }
 
-    float downX;
-    float downY;
+    /**
+     * 回放结束后停止settle，主视图放回原位，不回调onAnimationEnd
+     */
+    void resetAfterReplay() {
+        stopSettle();
+        final View target = getDragTarget();
+        if (null == target) return;
+        moveDragTarget(mOriginalX - target.getLeft(), mOriginalY - target.getTop());
+        mViewDragHelper.abort();
+        mDragCallback.dispatchDragState(ViewDragHelper.STATE_IDLE);
+    }
 
     /**
      * ④重写ViewGroup的onInterceptTouchEvent(MotionEvent ev)用来拦截事件
      */
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
+        if (null == mContentView) return false;
         boolean handled = false;
-        mTouchX = ev.getRawX();
-        mTouchY = ev.getRawY();
+        final int action = ev.getActionMasked();
+        if (mNestedDragging) {
+            //嵌套滑动驱动拖动中，不走ViewDragHelper
+            return false;
+        }
+        if (mEdgeOnly) {
+            if (action == MotionEvent.ACTION_DOWN) mEdgeTouched = touchedEdges(ev.getX(), ev.getY());
+            if (mEdgeTouched == NONE && !isSettling()) {
+                //边缘以外按下，整个手势直接放行
+                return false;
+            }
+        }
         if (isEnabled()) {
             if (mCurDragDirection == NONE) {
-                switch (ev.getAction()) {
+                switch (action) {
                     case MotionEvent.ACTION_DOWN:
-                        downX = mTouchX;
-                        downY = mTouchY;
+                        mDirectionClassifier.reset(mTouchX, mTouchY);
+                        if (null != mMetricsTracker) mMetricsTracker.onDown();
                         break;
                     case MotionEvent.ACTION_MOVE:
-                        float slope = (mTouchY - downY) / (mTouchX - downX);
-                        mCurDragDirection = Math.abs(slope) >= 1 ? (mTouchY > downY ? UP : DOWN) : (mTouchX > downX ? LEFT : RIGHT);
+                        final int direction = mDirectionClassifier.addSample(mTouchX, mTouchY);
+                        if (direction == NONE) {
+                            //还没超过slop或角度不明确，先不交给ViewDragHelper
+                            return super.onInterceptTouchEvent(ev);
+                        }
+                        if (isNestedScrollAxis(direction)) {
+                            //该轴向由嵌套滑动的子View交出未消费的距离，不需要查找子View和canScroll判断
+                            return super.onInterceptTouchEvent(ev);
+                        }
+                        if (mEdgeOnly && (direction & mEdgeTouched) == 0) {
+                            //不是朝按下的边缘拖出
+                            return super.onInterceptTouchEvent(ev);
+                        }
+                        //noinspection WrongConstant
+                        mCurDragDirection = direction;
+                        if (null != mMetricsTracker) {
+                            mMetricsTracker.onDirectionDecided(mCurDragDirection, mDirectionClassifier.getDecisionLatency());
+                        }
+                        decideChildWins(direction);
                         break;
                 }
-                if (mContentView instanceof ViewGroup) {
-                    findScrollView((ViewGroup) mContentView);
-                } else mScrollChild = mContentView;
             }
-//            Log.e("zhou", "-------mCurDragDirection-------------"+mCurDragDirection);
+            if (DEBUG) Log.d(TAG, "onInterceptTouchEvent: direction=" + mCurDragDirection);
 
             handled = mViewDragHelper.shouldInterceptTouchEvent(ev) ;
+            if (action == MotionEvent.ACTION_DOWN && isSettling()
+                    && mViewDragHelper.isViewUnder(getDragTarget(), (int) ev.getX(), (int) ev.getY())) {
+                //settle中按下主视图，停止动画并从当前位置继续拖动
+                stopSettle();
+                mViewDragHelper.captureChildView(getDragTarget(), ev.getPointerId(0));
+                handled = true;
+            }
         } else {
             mViewDragHelper.cancel();
         }
-        if (!handled) {
+        if (!handled && !isSettling()) {
             mCurDragDirection = NONE;
             mScrollChild = mContentView;
         }
@@ -595,10 +1650,149 @@ public class SwipeBackLayout extends FrameLayout {
      */
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (null == mContentView) return false;
+        if (mEdgeOnly && mEdgeTouched == NONE && !isSettling()) return false;
         mViewDragHelper.processTouchEvent(event);
         return true;
     }
 
+    /**
+     * direction所在轴向是否正在嵌套滑动
+     */
+    private boolean isNestedScrollAxis(int direction) {
+        final int axes = mNestedScrollingParentHelper.getNestedScrollAxes();
+        return DragDirections.isHorizontal(direction)
+                ? (axes & ViewCompat.SCROLL_AXIS_HORIZONTAL) != 0
+                : (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+    }
+
+    /**
+     * 只接受允许拖动方向所在轴向的嵌套滑动
+     */
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        if (!enableSwipeBack || !isEnabled() || mEdgeOnly || null == mContentView) return false;
+        if (mViewDragHelper.getViewDragState() != ViewDragHelper.STATE_IDLE || isSettling()) return false;
+        int axes = 0;
+        if (isAllowDragDirection(LEFT) || isAllowDragDirection(RIGHT)) axes |= ViewCompat.SCROLL_AXIS_HORIZONTAL;
+        if (isAllowDragDirection(UP) || isAllowDragDirection(DOWN)) axes |= ViewCompat.SCROLL_AXIS_VERTICAL;
+        return (nestedScrollAxes & axes) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        mNestedVelocityX = 0;
+        mNestedVelocityY = 0;
+    }
+
+    /**
+     * 拖动中，子View的滑动先用来移动主视图，直到主视图回到原位
+     */
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        if (!mNestedDragging) return;
+        if (DragDirections.isHorizontal(mCurDragDirection)) {
+            consumed[0] = nestedDrag(-dx);
+        } else {
+            consumed[1] = nestedDrag(-dy);
+        }
+        if (mDragOffset == 0) {
+            //回到原位，剩余的距离交还给子View滑动
+            mNestedDragging = false;
+            mDragCallback.dispatchDragState(ViewDragHelper.STATE_IDLE);
+        }
+    }
+
+    /**
+     * 子View滑到边缘后未消费的距离用来开始或继续拖动
+     */
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        if (!mNestedDragging) {
+            final int direction;
+            if (dyUnconsumed != 0) {
+                direction = dyUnconsumed < 0 ? UP : DOWN;
+            } else if (dxUnconsumed != 0) {
+                direction = dxUnconsumed < 0 ? LEFT : RIGHT;
+            } else {
+                return;
+            }
+            if (!isNestedScrollAxis(direction) || !isAllowDragDirection(direction)) return;
+            if (null != mOnSwipeBackCallback && mOnSwipeBackCallback.onIntercept(direction, mTouchX + mRawOffsetX, mTouchY + mRawOffsetY)) return;
+            //noinspection WrongConstant
+            mCurDragDirection = direction;
+            mNestedDragging = true;
+            if (null != mMetricsTracker) {
+                mMetricsTracker.onDirectionDecided(direction, mDirectionClassifier.getDecisionLatency());
+                mMetricsTracker.onCaptured();
+            }
+            mDragCallback.dispatchDragState(ViewDragHelper.STATE_DRAGGING);
+        }
+        if (DragDirections.isHorizontal(mCurDragDirection)) {
+            nestedDrag(-dxUnconsumed);
+        } else {
+            nestedDrag(-dyUnconsumed);
+        }
+    }
+
+    /**
+     * 按delta移动主视图，限制在拖动一侧
+     *
+     * @param delta 主视图移动距离
+     * @return 消费的滑动距离（与delta符号相反）
+     */
+    private int nestedDrag(int delta) {
+        if (delta == 0) return 0;
+        final View target = getDragTarget();
+        final boolean horizontal = DragDirections.isHorizontal(mCurDragDirection);
+        final int position = horizontal ? target.getLeft() : target.getTop();
+        final int origin = horizontal ? mOriginalX : mOriginalY;
+        int next = DragBounds.clamp(mCurDragDirection, position + delta,
+                horizontal ? getPaddingLeft() : getPaddingTop(),
+                horizontal ? mHorizontalDragRange : mVerticalDragRange);
+        if (!DragBounds.isOnDragSide(mCurDragDirection, next, origin)) next = origin;
+        if (horizontal) {
+            moveDragTarget(next - position, 0);
+        } else {
+            moveDragTarget(0, next - position);
+        }
+        return position - next;
+    }
+
+    /**
+     * 拖动中的fling不交给子View，留作松手速度
+     */
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        if (!mNestedDragging) return false;
+        mNestedVelocityX = -velocityX;
+        mNestedVelocityY = -velocityY;
+        return true;
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        return false;
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        if (!mNestedDragging) return;
+        mNestedDragging = false;
+        releaseDrag(mNestedVelocityX, mNestedVelocityY);
+        if (!isSettling()) {
+            //已在原位，没有settle
+            mDragCallback.dispatchDragState(ViewDragHelper.STATE_IDLE);
+        }
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
     public boolean childCanScrollUp() {
         return ViewCompat.canScrollVertically(mScrollChild, 1);
     }
@@ -621,11 +1815,20 @@ public class SwipeBackLayout extends FrameLayout {
         mOnSwipeBackCallback = callback;
     }
 
+    public interface OnContentInflatedListener {
+        /**
+         * 异步inflate的主视图已经替换为mContentView
+         */
+        void onContentInflated(View contentView);
+    }
+
     public interface OnSwipeBackListener {
         /**
          * 拦截事件
          *
          * @param direction
+         * @param touchX    跟踪的手指的屏幕x
+         * @param touchY    跟踪的手指的屏幕y
          * @return boolean 是否拦截该方向
          */
         boolean onIntercept(@DragDirection int direction, float touchX, float touchY);
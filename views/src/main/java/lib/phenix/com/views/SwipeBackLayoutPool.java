@@ -0,0 +1,60 @@
+package lib.phenix.com.views;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v4.util.Pools;
+import android.view.View;
+
+/**
+ * SwipeBackLayout对象池，用于RecyclerView等频繁创建的场景（如可划走的卡片），
+ * 复用时通过 {@link SwipeBackLayout#reset(View)} 清除拖动状态并替换主视图，
+ * 不再每次bind都创建ViewDragHelper、回调等对象
+ * <p>
+ * 只能在主线程调用；池中的SwipeBackLayout保留创建时的Context，不要跨Activity共享
+ */
+public final class SwipeBackLayoutPool {
+
+    private final Pools.SimplePool<SwipeBackLayout> mPool;
+
+    /**
+     * @param maxSize 池中最多保留的数量
+     */
+    public SwipeBackLayoutPool(int maxSize) {
+        mPool = new Pools.SimplePool<>(maxSize);
+    }
+
+    /**
+     * 从池中取一个SwipeBackLayout并设置主视图，池为空时创建新的
+     *
+     * @param context       上下文
+     * @param contentView   主视图，不能有父View
+     * @param directionMask 类似LEFT | UP
+     * @return SwipeBackLayout
+     */
+    @NonNull
+    public SwipeBackLayout acquire(@NonNull Context context, @NonNull View contentView, int directionMask) {
+        SwipeBackLayout layout = mPool.acquire();
+        if (null == layout) {
+            layout = new SwipeBackLayout(context);
+        }
+        layout.reset(contentView);
+        layout.setDragDirectionMask(directionMask);
+        return layout;
+    }
+
+    /**
+     * 放回池中，layout需已经从父View移除；监听置空，主视图同时移除，
+     * 主视图可以再添加到其他父View，池中的layout也不再持有原来的View树
+     *
+     * @return 池满时返回false，layout被丢弃
+     */
+    public boolean release(@NonNull SwipeBackLayout layout) {
+        if (null != layout.getParent()) {
+            throw new IllegalStateException("SwipeBackLayout must be removed from its parent before release");
+        }
+        layout.reset(null);
+        layout.removeContentView();
+        layout.setOnSwipeBackListener(null);
+        return mPool.release(layout);
+    }
+}
@@ -0,0 +1,111 @@
+package lib.phenix.com.views;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 每次swipe手势的性能数据，通过 {@link SwipeBackLayout#setSwipeBackMetrics(SwipeBackMetrics)} 设置
+ * 没有设置时不做任何统计
+ */
+public interface SwipeBackMetrics {
+
+    /**
+     * 手势结束（回到STATE_IDLE）时回调，只统计捕获了主视图的手势
+     *
+     * @param gesture 本次手势数据，该对象会被复用，不要持有
+     */
+    void onGestureEnd(Gesture gesture);
+
+    final class Gesture {
+        /**
+         * 界面被关闭
+         */
+        public static final int OUTCOME_FINISH = 1;
+        /**
+         * 回到原位
+         */
+        public static final int OUTCOME_SNAP_BACK = 2;
+
+        @IntDef({OUTCOME_FINISH, OUTCOME_SNAP_BACK})
+        @Retention(RetentionPolicy.SOURCE)
+        public @interface Outcome {
+        }
+
+        int direction;
+        long directionLatencyNanos;
+        int directionLatencyEvents;
+        long captureLatencyNanos;
+        int clampCount;
+        int settleFrames;
+        int droppedFrames;
+        int outcome;
+
+        Gesture() {
+        }
+
+        void reset() {
+            direction = SwipeBackLayout.NONE;
+            directionLatencyNanos = 0;
+            directionLatencyEvents = 0;
+            captureLatencyNanos = 0;
+            clampCount = 0;
+            settleFrames = 0;
+            droppedFrames = 0;
+            outcome = 0;
+        }
+
+        @SwipeBackLayout.DragDirection
+        public int getDirection() {
+            return direction;
+        }
+
+        /**
+         * @return ACTION_DOWN到判定出方向的时间
+         */
+        public long getDirectionLatencyNanos() {
+            return directionLatencyNanos;
+        }
+
+        /**
+         * @return 判定出方向用了几个MOVE事件
+         */
+        public int getDirectionLatencyEvents() {
+            return directionLatencyEvents;
+        }
+
+        /**
+         * @return ACTION_DOWN到tryCaptureView捕获主视图的时间
+         */
+        public long getCaptureLatencyNanos() {
+            return captureLatencyNanos;
+        }
+
+        /**
+         * @return clampViewPositionHorizontal/Vertical调用次数
+         */
+        public int getClampCount() {
+            return clampCount;
+        }
+
+        /**
+         * @return settle过程的帧数
+         */
+        public int getSettleFrames() {
+            return settleFrames;
+        }
+
+        /**
+         * @return settle过程中的丢帧数
+         */
+        public int getDroppedFrames() {
+            return droppedFrames;
+        }
+
+        @Outcome
+        public int getOutcome() {
+            return outcome;
+        }
+    }
+}
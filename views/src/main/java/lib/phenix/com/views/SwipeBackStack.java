@@ -0,0 +1,144 @@
+package lib.phenix.com.views;
+
+import android.view.View;
+import android.view.ViewParent;
+
+import java.util.ArrayList;
+
+/**
+ * 记录已attach的页面层SwipeBackLayout（按attach顺序），拖动一层时下一层做视差移动
+ * 每帧只有一个帧回调，只移动被拖动层的下一层，开销与层数无关
+ * <p>
+ * 只有通过 {@link SwipeBackLayout#setStackLayer(boolean)} 声明为页面层的（Activity、Fragment的根布局）才会加入，
+ * 列表中的卡片等不加入；查找下一层时跳过被拖动层的祖先和子孙（如Fragment所在Activity的根布局），
+ * 避免拖动Fragment时整个界面跟着移动
+ * <p>
+ * 开启：SwipeBackStack.get().setParallaxFactor(0.3f);
+ * 下层为其他Activity时需要window透明，使用截图背景时下层不可见，不要同时开启视差
+ * 只能在主线程调用
+ */
+public final class SwipeBackStack implements FrameTicker.Callback {
+
+    private static SwipeBackStack sInstance;
+
+    private final ArrayList<SwipeBackLayout> mLayers = new ArrayList<>();
+    private final FrameTicker mTicker = FrameTicker.create(this);
+    /**
+     * 视差因子[0,1]，下层最大偏移为drag范围的该比例，0不做视差
+     */
+    private float mParallaxFactor;
+
+    private SwipeBackLayout mMovingLayer;
+    /**
+     * 被拖动层的下一层，开始拖动时查找一次
+     */
+    private SwipeBackLayout mMovingBelow;
+    private int mMovingDirection;
+    private float mMovingFraction;
+
+    private SwipeBackStack() {
+    }
+
+    public static SwipeBackStack get() {
+        if (null == sInstance) {
+            sInstance = new SwipeBackStack();
+        }
+        return sInstance;
+    }
+
+    public void setParallaxFactor(float factor) {
+        this.mParallaxFactor = factor;
+    }
+
+    public float getParallaxFactor() {
+        return mParallaxFactor;
+    }
+
+    public int getLayerCount() {
+        return mLayers.size();
+    }
+
+    void push(SwipeBackLayout layer) {
+        mLayers.remove(layer);
+        mLayers.add(layer);
+    }
+
+    void remove(SwipeBackLayout layer) {
+        if (layer == mMovingLayer) onLayerIdle(layer);
+        if (layer == mMovingBelow) mMovingBelow = null;
+        mLayers.remove(layer);
+    }
+
+    /**
+     * 被拖动层位置变化，下一帧再移动下层
+     *
+     * @param layer     被拖动层
+     * @param direction 拖动方向
+     * @param fraction  被拖动层移开的比例[0,1]
+     */
+    void onLayerMoved(SwipeBackLayout layer, int direction, float fraction) {
+        if (mParallaxFactor <= 0) return;
+        if (layer != mMovingLayer) {
+            mMovingBelow = layerBelow(layer);
+        }
+        mMovingLayer = layer;
+        mMovingDirection = direction;
+        mMovingFraction = fraction;
+        mTicker.start();
+    }
+
+    /**
+     * 被拖动层回到静止，下层复位
+     */
+    void onLayerIdle(SwipeBackLayout layer) {
+        if (layer != mMovingLayer) return;
+        mTicker.stop();
+        if (null != mMovingBelow) {
+            mMovingBelow.setTranslationX(0);
+            mMovingBelow.setTranslationY(0);
+        }
+        mMovingLayer = null;
+        mMovingBelow = null;
+    }
+
+    /**
+     * @return layer之前attach的、与layer不在同一条祖先链上的最近一层，没有返回null
+     */
+    private SwipeBackLayout layerBelow(SwipeBackLayout layer) {
+        for (int i = mLayers.lastIndexOf(layer) - 1; i >= 0; i--) {
+            final SwipeBackLayout candidate = mLayers.get(i);
+            if (!isAncestor(candidate, layer) && !isAncestor(layer, candidate)) return candidate;
+        }
+        return null;
+    }
+
+    private static boolean isAncestor(View ancestor, View view) {
+        for (ViewParent parent = view.getParent(); null != parent; parent = parent.getParent()) {
+            if (parent == ancestor) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mTicker.stop();
+        if (null == mMovingLayer) return;
+        final SwipeBackLayout below = mMovingBelow;
+        if (null == below) return;
+        final float remain = (1 - mMovingFraction) * mParallaxFactor;
+        switch (mMovingDirection) {
+            case DragDirections.LEFT:
+                below.setTranslationX(-remain * below.getWidth());
+                break;
+            case DragDirections.RIGHT:
+                below.setTranslationX(remain * below.getWidth());
+                break;
+            case DragDirections.UP:
+                below.setTranslationY(-remain * below.getHeight());
+                break;
+            case DragDirections.DOWN:
+                below.setTranslationY(remain * below.getHeight());
+                break;
+        }
+    }
+}
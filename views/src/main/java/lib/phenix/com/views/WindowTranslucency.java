@@ -0,0 +1,105 @@
+package lib.phenix.com.views;
+
+import android.app.Activity;
+import android.os.Build;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * 通过反射调用Activity的隐藏方法convertToTranslucent/convertFromTranslucent（API 16+），
+ * 静止时窗口不透明，下层窗口不参与合成；拖动时才切换为透明
+ * <p>
+ * Method在 {@link #warmUp()} 中解析并缓存（进程内只解析一次），拖动开始时只剩一次反射调用。
+ * 转换是异步的，在开始拖动主视图时（ViewDragHelper捕获）开始；下层窗口绘制完成前由截图背景覆盖，不需要转换完成的回调，传null
+ * <p>
+ * 主题仍需windowIsTranslucent=true，否则部分系统上convertToTranslucent不生效
+ */
+final class WindowTranslucency {
+
+    private static final String TAG = "WindowTranslucency";
+
+    private static boolean sResolved;
+    private static Method sConvertToTranslucent;
+    private static Method sConvertFromTranslucent;
+    private static Method sGetActivityOptions;
+
+    private final Activity mActivity;
+    private boolean mTranslucent = true;
+
+    WindowTranslucency(Activity activity) {
+        mActivity = activity;
+    }
+
+    private static void resolve() {
+        if (sResolved) return;
+        sResolved = true;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) return;
+        try {
+            Class<?> listenerClass = null;
+            for (Class<?> clazz : Activity.class.getDeclaredClasses()) {
+                if (clazz.getSimpleName().equals("TranslucentConversionListener")) {
+                    listenerClass = clazz;
+                    break;
+                }
+            }
+            if (null == listenerClass) return;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                sGetActivityOptions = Activity.class.getDeclaredMethod("getActivityOptions");
+                sGetActivityOptions.setAccessible(true);
+                sConvertToTranslucent = Activity.class.getDeclaredMethod("convertToTranslucent",
+                        listenerClass, Class.forName("android.app.ActivityOptions"));
+            } else {
+                sConvertToTranslucent = Activity.class.getDeclaredMethod("convertToTranslucent", listenerClass);
+            }
+            sConvertToTranslucent.setAccessible(true);
+            sConvertFromTranslucent = Activity.class.getDeclaredMethod("convertFromTranslucent");
+            sConvertFromTranslucent.setAccessible(true);
+        } catch (Throwable t) {
+            Log.w(TAG, "translucent conversion not available", t);
+            sConvertToTranslucent = null;
+            sConvertFromTranslucent = null;
+        }
+    }
+
+    /**
+     * 解析反射方法，在attach时调用，避免在第一帧拖动中做
+     */
+    void warmUp() {
+        resolve();
+    }
+
+    boolean isSupported() {
+        return null != sConvertToTranslucent && null != sConvertFromTranslucent;
+    }
+
+    /**
+     * 切换为透明，已经是透明时不做任何事
+     */
+    void convertToTranslucent() {
+        if (mTranslucent || !isSupported()) return;
+        try {
+            if (null != sGetActivityOptions) {
+                sConvertToTranslucent.invoke(mActivity, null, sGetActivityOptions.invoke(mActivity));
+            } else {
+                sConvertToTranslucent.invoke(mActivity, (Object) null);
+            }
+            mTranslucent = true;
+        } catch (Throwable t) {
+            Log.w(TAG, "convertToTranslucent failed", t);
+        }
+    }
+
+    /**
+     * 切换为不透明，已经不透明时不做任何事
+     */
+    void convertFromTranslucent() {
+        if (!mTranslucent || !isSupported()) return;
+        try {
+            sConvertFromTranslucent.invoke(mActivity);
+            mTranslucent = false;
+        } catch (Throwable t) {
+            Log.w(TAG, "convertFromTranslucent failed", t);
+        }
+    }
+}
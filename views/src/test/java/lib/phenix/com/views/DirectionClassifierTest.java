@@ -0,0 +1,141 @@
+package lib.phenix.com.views;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * 把src/test/resources/traces下的.sbt手势（{@link GestureTrace}格式，1080x1920）逐个MOVE交给DirectionClassifier，
+ * 检查判定的方向和判定用的MOVE数（latency）
+ * <p>
+ * touch slop 24px，hysteresis为默认的1.2
+ */
+public class DirectionClassifierTest {
+
+    /**
+     * MotionEvent#ACTION_DOWN、ACTION_MOVE
+     */
+    private static final int ACTION_DOWN = 0;
+    private static final int ACTION_MOVE = 2;
+
+    private static final float TOUCH_SLOP = 24;
+
+    private static GestureTrace load(String name) throws IOException {
+        final InputStream in = DirectionClassifierTest.class.getResourceAsStream("/traces/" + name + ".sbt");
+        assertNotNull(name + ".sbt not found", in);
+        try {
+            return GestureTrace.readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 回放trace，判定后的MOVE同样交给classifier，检查判定不再改变
+     */
+    private static DirectionClassifier replay(String name) throws IOException {
+        final GestureTrace trace = load(name);
+        final DirectionClassifier classifier = new DirectionClassifier(TOUCH_SLOP, DirectionClassifier.DEFAULT_HYSTERESIS);
+        int decided = DragDirections.NONE;
+        for (int i = 0; i < trace.size(); i++) {
+            final int action = trace.getAction(i);
+            if (action == ACTION_DOWN) {
+                classifier.reset(trace.getX(i), trace.getY(i));
+            } else if (action == ACTION_MOVE) {
+                final int direction = classifier.addSample(trace.getX(i), trace.getY(i));
+                if (decided != DragDirections.NONE) assertEquals(name + " changed after decision", decided, direction);
+                decided = direction;
+            }
+        }
+        return classifier;
+    }
+
+    private static void assertDecision(String name, int direction, int latency) throws IOException {
+        final DirectionClassifier classifier = replay(name);
+        assertEquals(name + " direction", direction, classifier.getDirection());
+        assertEquals(name + " latency", latency, classifier.getDecisionLatency());
+    }
+
+    /**
+     * 10个MOVE都在slop以内来回抖动，不判定
+     */
+    @Test
+    public void jitterWithinSlopIsIgnored() throws IOException {
+        assertDecision("jitter_within_slop", DragDirections.NONE, 0);
+    }
+
+    /**
+     * 每个MOVE (+8, +1)，第3个MOVE越过slop即判定
+     */
+    @Test
+    public void horizontalSwipeDecidesOnceBeyondSlop() throws IOException {
+        assertDecision("horizontal_swipe", DragDirections.LEFT, 3);
+    }
+
+    /**
+     * 每个MOVE (-12, +2)，向左划从右边缘拖出
+     */
+    @Test
+    public void leftwardSwipe() throws IOException {
+        assertDecision("leftward_swipe", DragDirections.RIGHT, 2);
+    }
+
+    /**
+     * 每个MOVE (0, +10)，dx恒为0
+     */
+    @Test
+    public void verticalWithZeroDx() throws IOException {
+        assertDecision("vertical_dx_zero", DragDirections.UP, 3);
+    }
+
+    /**
+     * 每个MOVE (+1, -14)
+     */
+    @Test
+    public void upwardScroll() throws IOException {
+        assertDecision("upward_scroll", DragDirections.DOWN, 2);
+    }
+
+    /**
+     * 每个MOVE (+10, +9)：第2个MOVE已越过slop，但两轴之比在hysteresis以内（死区），
+     * 直到第4个MOVE移动距离超过2倍slop，按位移较大的水平轴判定
+     */
+    @Test
+    public void diagonalWaitsInDeadBand() throws IOException {
+        assertDecision("diagonal_dead_band", DragDirections.LEFT, 4);
+    }
+
+    @Test
+    public void tracesRoundTrip() throws IOException {
+        final GestureTrace trace = load("horizontal_swipe");
+        assertEquals(1080, trace.getWidth());
+        assertEquals(1920, trace.getHeight());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        final GestureTrace copy = GestureTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(trace.size(), copy.size());
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(trace.getAction(i), copy.getAction(i));
+            assertEquals(trace.getTime(i), copy.getTime(i));
+            assertEquals(trace.getX(i), copy.getX(i), 0);
+            assertEquals(trace.getY(i), copy.getY(i), 0);
+        }
+    }
+
+    @Test
+    public void resetStartsNewDecision() {
+        final DirectionClassifier classifier = new DirectionClassifier(TOUCH_SLOP, DirectionClassifier.DEFAULT_HYSTERESIS);
+        classifier.reset(0, 0);
+        assertEquals(DragDirections.LEFT, classifier.addSample(100, 0));
+        classifier.reset(0, 0);
+        assertEquals(DragDirections.NONE, classifier.getDirection());
+        assertEquals(0, classifier.getDecisionLatency());
+        assertEquals(DragDirections.DOWN, classifier.addSample(0, -100));
+    }
+}
@@ -0,0 +1,133 @@
+package lib.phenix.com.views;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 对比DRAG_MODE_LAYOUT和DRAG_MODE_TRANSLATION拖动中的布局次数和位置：
+ * 向右拖动主视图，主视图每帧requestLayout（模拟图片加载完成等），每帧之后做一次measure/layout
+ * <p>
+ * 运行：./gradlew :views:testDebugUnitTest
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DragModeLayoutTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int FRAMES = 20;
+    private static final int STEP = 20;
+
+    /**
+     * 记录onLayout次数的主视图
+     */
+    static class CountingContent extends FrameLayout {
+        int layoutCount;
+
+        CountingContent(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            super.onLayout(changed, left, top, right, bottom);
+            layoutCount++;
+        }
+
+        int getDisplayedLeft() {
+            return getLeft() + (int) getTranslationX();
+        }
+    }
+
+    static class Pass {
+        /**
+         * 拖动中主视图的onLayout次数
+         */
+        int layoutCount;
+        /**
+         * 每帧布局前后显示位置变化的累计，即布局把主视图拉离拖动位置的距离
+         */
+        int positionLoss;
+        /**
+         * 最后一帧主视图显示位置
+         */
+        int finalLeft;
+    }
+
+    private static Pass drag(@SwipeBackLayout.DragMode int dragMode, boolean requestLayoutEachFrame) {
+        final Context context = RuntimeEnvironment.application;
+        final CountingContent content = new CountingContent(context);
+        final SwipeBackLayout layout = new SwipeBackLayout(context, content, SwipeBackLayout.LEFT);
+        layout.setDragMode(dragMode);
+        layoutPass(layout);
+        content.layoutCount = 0;
+
+        final Pass pass = new Pass();
+        final long downTime = SystemClock.uptimeMillis();
+        final float y = HEIGHT / 2;
+        dispatch(layout, downTime, 0, MotionEvent.ACTION_DOWN, 100, y);
+        for (int i = 1; i <= FRAMES; i++) {
+            dispatch(layout, downTime, i * 16, MotionEvent.ACTION_MOVE, 100 + i * STEP, y);
+            if (requestLayoutEachFrame) content.requestLayout();
+            final int before = content.getDisplayedLeft();
+            layoutPass(layout);
+            pass.positionLoss += Math.abs(before - content.getDisplayedLeft());
+        }
+        pass.layoutCount = content.layoutCount;
+        pass.finalLeft = content.getDisplayedLeft();
+        dispatch(layout, downTime, (FRAMES + 1) * 16, MotionEvent.ACTION_CANCEL, 100 + FRAMES * STEP, y);
+        return pass;
+    }
+
+    private static void layoutPass(View layout) {
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static void dispatch(View layout, long downTime, int time, int action, float x, float y) {
+        final MotionEvent ev = MotionEvent.obtain(downTime, downTime + time, action, x, y, 0);
+        layout.dispatchTouchEvent(ev);
+        ev.recycle();
+    }
+
+    @Test
+    public void dragWithoutRequestLayoutDoesNotLayoutContent() {
+        for (int mode : new int[]{SwipeBackLayout.DRAG_MODE_LAYOUT, SwipeBackLayout.DRAG_MODE_TRANSLATION}) {
+            final Pass pass = drag(mode, false);
+            assertEquals("mode " + mode + " layout passes", 0, pass.layoutCount);
+            assertEquals("mode " + mode + " position loss", 0, pass.positionLoss);
+            assertTrue("mode " + mode + " did not drag", pass.finalLeft > 0);
+        }
+    }
+
+    @Test
+    public void translationKeepsPositionWhenContentRequestsLayout() {
+        final Pass layoutMode = drag(SwipeBackLayout.DRAG_MODE_LAYOUT, true);
+        final Pass translationMode = drag(SwipeBackLayout.DRAG_MODE_TRANSLATION, true);
+        final String passes = "layout passes: layout=" + layoutMode.layoutCount
+                + " translation=" + translationMode.layoutCount;
+        final String loss = "position loss: layout=" + layoutMode.positionLoss
+                + "px translation=" + translationMode.positionLoss + "px";
+
+        //两种方式每帧都要布局主视图，translation不会多出布局
+        assertEquals(passes, FRAMES, translationMode.layoutCount);
+        assertTrue(passes, translationMode.layoutCount <= layoutMode.layoutCount);
+        //layout方式每帧被布局拉回原位，translation方式位置不受影响
+        assertTrue(loss, layoutMode.positionLoss > 0);
+        assertEquals(loss, 0, translationMode.positionLoss);
+        assertTrue(translationMode.finalLeft > layoutMode.finalLeft);
+    }
+}
@@ -0,0 +1,171 @@
+package lib.phenix.com.views;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.HorizontalScrollView;
+import android.widget.LinearLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * 在JVM上（Robolectric，不需要设备）回放 {@link GestureTrace}：
+ * src/test/resources/traces下的手势，以及-Dswipeback.traces=目录 指定的真机录制（GestureTraceRecorder）的.sbt
+ * <p>
+ * 运行：./gradlew :views:testDebugUnitTest -Dswipeback.traces=/path/to/traces
+ * 只统计线程CPU时间（ThreadMXBean），Robolectric下的分配数没有意义，见androidTest中的TouchAllocationTest；
+ * xxhdpi下touch slop为24px，与DirectionClassifierTest一致
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, qualifiers = "xxhdpi")
+public class GestureReplayTest {
+
+    private static final String[] FIXTURES = {
+            "jitter_within_slop", "horizontal_swipe", "leftward_swipe",
+            "vertical_dx_zero", "upward_scroll", "diagonal_dead_band"};
+
+    /**
+     * ThreadMXBean统计CPU时间，不统计分配
+     */
+    private static final GestureTracePlayer.Meter JVM_METER = new GestureTracePlayer.Meter() {
+        private final ThreadMXBean mThreadBean = ManagementFactory.getThreadMXBean();
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void beginEvent() {
+        }
+
+        @Override
+        public long cpuTimeNanos() {
+            return mThreadBean.isCurrentThreadCpuTimeSupported() ? mThreadBean.getCurrentThreadCpuTime() : 0;
+        }
+
+        @Override
+        public int allocations() {
+            return 0;
+        }
+    };
+
+    private static SwipeBackLayout createLayout(View content, int width, int height) {
+        final SwipeBackLayout layout = new SwipeBackLayout(RuntimeEnvironment.application, content,
+                SwipeBackLayout.LEFT | SwipeBackLayout.UP | SwipeBackLayout.RIGHT | SwipeBackLayout.DOWN);
+        layout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, width, height);
+        return layout;
+    }
+
+    private static GestureTrace read(InputStream in) throws IOException {
+        try {
+            return GestureTrace.readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static GestureTracePlayer.Result replay(GestureTrace trace) {
+        final SwipeBackLayout layout = createLayout(new FrameLayout(RuntimeEnvironment.application),
+                trace.getWidth(), trace.getHeight());
+        return GestureTracePlayer.replay(layout, trace, JVM_METER);
+    }
+
+    /**
+     * 方向与DirectionClassifierTest中相同，没有可滑动子View时判定后即拖动主视图
+     */
+    @Test
+    public void replayFixtures() throws IOException {
+        final int[] directions = {SwipeBackLayout.NONE, SwipeBackLayout.LEFT, SwipeBackLayout.RIGHT,
+                SwipeBackLayout.UP, SwipeBackLayout.DOWN, SwipeBackLayout.LEFT};
+        for (int i = 0; i < FIXTURES.length; i++) {
+            final InputStream in = getClass().getResourceAsStream("/traces/" + FIXTURES[i] + ".sbt");
+            assertNotNull(FIXTURES[i], in);
+            final GestureTracePlayer.Result result = replay(read(in));
+            final String message = FIXTURES[i] + ": " + result;
+            assertEquals(message, directions[i], result.getDirection());
+            if (directions[i] == SwipeBackLayout.NONE) {
+                assertEquals(message, GestureTracePlayer.OUTCOME_NONE, result.getOutcome());
+            } else {
+                assertNotEquals(message, GestureTracePlayer.OUTCOME_NONE, result.getOutcome());
+            }
+        }
+    }
+
+    /**
+     * -Dswipeback.traces指定目录时回放其中所有.sbt，只检查每个事件都分发了，结果见断言信息
+     */
+    @Test
+    public void replayRecordedTraces() throws IOException {
+        final String dir = System.getProperty("swipeback.traces");
+        if (null == dir) return;
+        final File[] files = new File(dir).listFiles();
+        if (null == files) return;
+        for (File file : files) {
+            if (!file.getName().endsWith(".sbt")) continue;
+            final GestureTrace trace = read(new FileInputStream(file));
+            final GestureTracePlayer.Result result = replay(trace);
+            assertEquals(file.getName() + ": " + result, trace.size(), result.size());
+        }
+    }
+
+    /**
+     * 下半部分是可以向右滚动的HorizontalScrollView，同一个向左划的手势：
+     * 在上半部分拖动主视图，在下半部分交给HorizontalScrollView。
+     * 事件坐标与查找可滑动子View的坐标都是相对SwipeBackLayout的，layout没有attach到窗口也能找对
+     */
+    @Test
+    public void resolvesScrollChildInLayoutCoordinates() {
+        final Context context = RuntimeEnvironment.application;
+        final LinearLayout content = new LinearLayout(context);
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.addView(new View(context), new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 960));
+        final HorizontalScrollView scrollView = new HorizontalScrollView(context);
+        final View wide = new View(context);
+        wide.setMinimumWidth(3000);
+        scrollView.addView(wide, new FrameLayout.LayoutParams(3000, FrameLayout.LayoutParams.MATCH_PARENT));
+        content.addView(scrollView, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 960));
+        final SwipeBackLayout layout = createLayout(content, 1080, 1920);
+
+        final GestureTracePlayer.Result top = GestureTracePlayer.replay(layout, swipe(900, 480, -12, 0), JVM_METER);
+        assertEquals(SwipeBackLayout.RIGHT, top.getDirection());
+        assertNotEquals(GestureTracePlayer.OUTCOME_NONE, top.getOutcome());
+
+        final GestureTracePlayer.Result bottom = GestureTracePlayer.replay(layout, swipe(900, 1440, -12, 0), JVM_METER);
+        assertEquals(GestureTracePlayer.OUTCOME_NONE, bottom.getOutcome());
+    }
+
+    /**
+     * 从(x, y)开始，每16ms移动(stepX, stepY)，共8个MOVE后松手
+     */
+    private static GestureTrace swipe(float x, float y, float stepX, float stepY) {
+        final GestureTrace trace = new GestureTrace(1080, 1920);
+        trace.add(MotionEvent.ACTION_DOWN, 0, x, y);
+        for (int i = 1; i <= 8; i++) {
+            trace.add(MotionEvent.ACTION_MOVE, i * 16, x + stepX * i, y + stepY * i);
+        }
+        trace.add(MotionEvent.ACTION_UP, 9 * 16, x + stepX * 8, y + stepY * 8);
+        return trace;
+    }
+}
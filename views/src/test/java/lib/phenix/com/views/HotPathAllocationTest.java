@@ -0,0 +1,122 @@
+package lib.phenix.com.views;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 每个touch事件、每帧调用的纯Java逻辑不能分配对象
+ * <p>
+ * 通过com.sun.management.ThreadMXBean统计当前线程分配的字节数，
+ * 同一段逻辑执行ITERATIONS次，分配量不能随次数增长（测量本身的少量分配由SLACK_BYTES容忍）。
+ * 经过Android API的完整路径（dispatchTouchEvent）在设备上由androidTest中的TouchAllocationTest检查
+ */
+public class HotPathAllocationTest {
+
+    private static final int ITERATIONS = 100000;
+    private static final long SLACK_BYTES = 1024;
+
+    private com.sun.management.ThreadMXBean mThreadBean;
+
+    @Before
+    public void setUp() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private interface Body {
+        int run(int i);
+    }
+
+    /**
+     * 先执行一遍完成类加载、JIT，再统计ITERATIONS次执行的分配量
+     */
+    private void assertNoAllocation(String name, Body body) {
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) sink += body.run(i);
+        final long threadId = Thread.currentThread().getId();
+        final long before = mThreadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) sink += body.run(i);
+        final long allocated = mThreadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(name + " allocated " + allocated + " bytes in " + ITERATIONS + " calls (" + sink + ")",
+                allocated < SLACK_BYTES);
+    }
+
+    @Test
+    public void directionClassifier() {
+        final DirectionClassifier classifier = new DirectionClassifier(24, DirectionClassifier.DEFAULT_HYSTERESIS);
+        assertNoAllocation("DirectionClassifier", new Body() {
+            @Override
+            public int run(int i) {
+                classifier.reset(540, 960);
+                int direction = DragDirections.NONE;
+                for (int n = 1; n <= 16 && direction == DragDirections.NONE; n++) {
+                    direction = classifier.addSample(540 + n * (i % 7 - 3), 960 + n * (i % 5 - 2));
+                }
+                return direction + classifier.getDecisionLatency();
+            }
+        });
+    }
+
+    @Test
+    public void dragBoundsAndReleasePolicy() {
+        assertNoAllocation("DragBounds/ReleasePolicy", new Body() {
+            @Override
+            public int run(int i) {
+                final int direction = 1 << (i & 3);
+                final boolean horizontal = DragDirections.isHorizontal(direction);
+                final int position = i % 2000 - 1000;
+                int result = DragBounds.isOnDragSide(direction, position, 0)
+                        ? DragBounds.clamp(direction, position, 0, 1080) : 0;
+                final float velocity = ReleasePolicy.exitVelocity(direction, i % 3000, -i % 3000);
+                final boolean finish = ReleasePolicy.shouldFinish(Math.abs(position), 1080, 0.3f, velocity, 400, 16);
+                return result + ReleasePolicy.finalPosition(direction, finish, 0, horizontal ? 1080 : 1920);
+            }
+        });
+    }
+
+    @Test
+    public void springSettleEngine() {
+        final SpringSettleEngine engine = new SpringSettleEngine();
+        assertNoAllocation("SpringSettleEngine", new Body() {
+            @Override
+            public int run(int i) {
+                engine.start(i % 1080, 0, -(i % 4000), 0);
+                int frames = 0;
+                for (long time = 16000000L; engine.isRunning() && frames < 120; time += 16000000L) {
+                    engine.step(time);
+                    frames++;
+                }
+                return frames;
+            }
+        });
+    }
+
+    @Test
+    public void directionDecisionCache() {
+        final DirectionDecisionCache cache = new DirectionDecisionCache(48);
+        cache.setSize(1080, 1920);
+        assertNoAllocation("DirectionDecisionCache", new Body() {
+            @Override
+            public int run(int i) {
+                final int direction = 1 << (i & 3);
+                final float x = i % 1080;
+                final float y = i % 1920;
+                final boolean hit = cache.get(x, y, direction) != DirectionDecisionCache.UNKNOWN;
+                cache.countLookup(hit);
+                if (!hit) {
+                    cache.put(x, y, direction, (i & 4) != 0);
+                }
+                if ((i & 1023) == 0) cache.invalidate();
+                return cache.getHitCount();
+            }
+        });
+    }
+}
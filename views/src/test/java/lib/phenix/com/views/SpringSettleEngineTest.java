@@ -0,0 +1,62 @@
+package lib.phenix.com.views;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按SwipeBackLayout的用法逐帧（16ms）驱动SpringSettleEngine：
+ * 退出时目标越过drag范围10%（EXIT_OVERSHOOT）并在边界截断，归位时不越过原位
+ */
+public class SpringSettleEngineTest {
+
+    private static final long FRAME_NANOS = 16000000L;
+    private static final int RANGE = 1080;
+    private static final int MAX_FRAMES = 240;
+
+    /**
+     * @return 从position出发，位置截断在[min, max]内，到达finalPosition或引擎结束用的帧数
+     */
+    private static int framesToSettle(SettleEngine engine, float position, float engineTarget,
+                                      int finalPosition, int min, int max) {
+        engine.start(position, engineTarget, 0, 0);
+        for (int frame = 1; frame <= MAX_FRAMES; frame++) {
+            final int current = Math.max(min, Math.min(Math.round(engine.step(frame * FRAME_NANOS)), max));
+            if (!engine.isRunning() || current == finalPosition) return frame;
+        }
+        return MAX_FRAMES;
+    }
+
+    @Test
+    public void exitOvershootSettlesFaster() {
+        final SpringSettleEngine engine = new SpringSettleEngine();
+        final int exact = framesToSettle(engine, 300, RANGE, RANGE, 0, RANGE);
+        final int overshoot = framesToSettle(engine, 300, RANGE * 1.1f, RANGE, 0, RANGE);
+        final String frames = "exit frames: exact target=" + exact + " overshoot target=" + overshoot;
+        assertTrue(frames, overshoot < exact);
+        assertTrue(frames, overshoot < 15);
+    }
+
+    @Test
+    public void snapBackNeverCrossesOrigin() {
+        final SpringSettleEngine engine = new SpringSettleEngine();
+        //朝原位的初速度很大
+        engine.start(200, 0, -20000, 0);
+        for (int frame = 1; frame <= MAX_FRAMES && engine.isRunning(); frame++) {
+            assertTrue(engine.step(frame * FRAME_NANOS) >= 0);
+        }
+        assertFalse(engine.isRunning());
+        assertEquals(0, engine.step(MAX_FRAMES * FRAME_NANOS), 0);
+    }
+
+    @Test
+    public void stopEndsImmediately() {
+        final SpringSettleEngine engine = new SpringSettleEngine();
+        engine.start(200, 0, 0, 0);
+        assertTrue(engine.isRunning());
+        engine.stop();
+        assertFalse(engine.isRunning());
+    }
+}